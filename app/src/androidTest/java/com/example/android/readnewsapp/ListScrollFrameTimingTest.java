@@ -0,0 +1,237 @@
+package com.example.android.readnewsapp;
+
+import android.app.Instrumentation;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.filters.SdkSuppress;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.Choreographer;
+import android.widget.ListView;
+
+import com.example.android.readnewsapp.core.News;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Instrumentation test, which compares the frame timings of scrolling a long list of
+ * News Articles with the text of the rows laid out at bind time (A) & with the Layouts
+ * precomputed by the {@link RowTextPrecomputer} (B). The runs alternate A B B A, so
+ * warm-up effects hit both variants alike. The list is a new ListView that replaces the
+ * content of the activity, so the section loaders of the activity can't touch it.
+ */
+@RunWith(AndroidJUnit4.class)
+@SdkSuppress(minSdkVersion = 16)
+public class ListScrollFrameTimingTest {
+
+    private static final String LOG_TAG = ListScrollFrameTimingTest.class.getSimpleName();
+
+    private static final int NEWS_COUNT = 1000;
+    private static final int SCROLL_DURATION = 5000; // milliseconds
+    private static final long JANK_FRAME_NANOS = 17 * 1000 * 1000;
+
+    /**
+     * Variants of the runs, in order: bind-time layout (A) & precomputed layout (B)
+     */
+    private static final boolean[] RUN_PRECOMPUTED = {false, true, true, false};
+
+    /**
+     * The precomputed runs may be this much slower (noise) before the test fails
+     */
+    private static final double TOLERANCE = 1.1;
+    private static final long TOLERANCE_NANOS = 1000 * 1000;
+
+    @Rule
+    public ActivityTestRule<MainActivity> mActivityRule = new ActivityTestRule<>(MainActivity.class);
+
+    @Test
+    public void compareFrameTimings() throws Exception {
+        List<Long> plainFrames = new ArrayList<>();
+        List<Long> precomputedFrames = new ArrayList<>();
+        for (int run = 0; run < RUN_PRECOMPUTED.length; run++) {
+            boolean precompute = RUN_PRECOMPUTED[run];
+            // Each run uses different words, so a run doesn't profit
+            // from text measured during the ones before it
+            long[] frames = scrollList(createNews("run" + run), precompute);
+            for (long frame : frames) {
+                (precompute ? precomputedFrames : plainFrames).add(frame);
+            }
+        }
+        long[] plain = toSortedArray(plainFrames);
+        long[] precomputed = toSortedArray(precomputedFrames);
+
+        String report = "A bind-time layout: " + summarize(plain)
+                + "\nB precomputed layout: " + summarize(precomputed)
+                + "\nB vs A: p50 " + percentChange(percentile(plain, 50), percentile(precomputed, 50))
+                + ", p90 " + percentChange(percentile(plain, 90), percentile(precomputed, 90))
+                + ", janky " + percentChange(countJanky(plain), countJanky(precomputed));
+        Log.i(LOG_TAG, report);
+
+        Bundle results = new Bundle();
+        results.putString(Instrumentation.REPORT_KEY_STREAMRESULT, report + "\n");
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        assertTrue(plain.length > 0);
+        assertTrue(precomputed.length > 0);
+        // Precomputing the Layouts must not make scrolling slower
+        assertTrue(report, percentile(precomputed, 90)
+                <= percentile(plain, 90) * TOLERANCE + TOLERANCE_NANOS);
+    }
+
+    /**
+     * Show the given News Articles in the list of the activity, fling through it
+     * and return the duration (in nanoseconds) of every frame drawn meanwhile.
+     */
+    private long[] scrollList(final List<News> news, boolean precompute) {
+        final MainActivity activity = mActivityRule.getActivity();
+        final NewsAdapter adapter = new NewsAdapter(activity, new ArrayList<News>());
+
+        // A list of the test only, the activity keeps updating its own (detached) list
+        final ListView[] list = new ListView[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                list[0] = new ListView(activity);
+                activity.setContentView(list[0]);
+            }
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        final ListView listView = list[0];
+
+        if (precompute) {
+            final RowTextPrecomputer[] precomputer = new RowTextPrecomputer[1];
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    precomputer[0] = adapter.createTextPrecomputer(listView, listView.getWidth());
+                }
+            });
+            // This test runs on the instrumentation thread, like a loader's background thread
+            precomputer[0].precompute(news);
+        }
+
+        final FrameRecorder recorder = new FrameRecorder();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                adapter.addAll(news);
+                listView.setAdapter(adapter);
+                Choreographer.getInstance().postFrameCallback(recorder);
+                listView.smoothScrollToPositionFromTop(news.size() - 1, 0, SCROLL_DURATION);
+            }
+        });
+        SystemClock.sleep(SCROLL_DURATION + 500);
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                recorder.stop();
+            }
+        });
+        return recorder.getFrameDurations();
+    }
+
+    private static List<News> createNews(String prefix) {
+        List<News> news = new ArrayList<>();
+        for (int i = 0; i < NEWS_COUNT; i++) {
+            news.add(new News(
+                    prefix + " headline " + i + ": the team of " + prefix + i
+                            + " wins the final after extra time and penalties",
+                    "Sport",
+                    "<p>" + prefix + " match report " + i + " with <strong>all the goals</strong>, "
+                            + "the <em>reactions</em> of the managers and the table after round "
+                            + i + " of the season.</p>",
+                    "2017-10-21 16:55",
+                    "https://www.theguardian.com/sport/" + prefix + "/" + i));
+        }
+        return news;
+    }
+
+    private static long[] toSortedArray(List<Long> frames) {
+        long[] sorted = new long[frames.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = frames.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted.length == 0 ? 0 : sorted[(sorted.length - 1) * percent / 100];
+    }
+
+    private static int countJanky(long[] frames) {
+        int janky = 0;
+        for (long frame : frames) {
+            if (frame > JANK_FRAME_NANOS) {
+                janky++;
+            }
+        }
+        return janky;
+    }
+
+    private static String percentChange(long before, long after) {
+        if (before == 0) {
+            return after == 0 ? "+0%" : "n/a";
+        }
+        return String.format(Locale.US, "%+.1f%%", (after - before) * 100.0 / before);
+    }
+
+    private static String summarize(long[] sorted) {
+        if (sorted.length == 0) {
+            return "no frames";
+        }
+        long total = 0;
+        for (long frame : sorted) {
+            total += frame;
+        }
+        return sorted.length + " frames, avg " + (total / sorted.length / 1000) + "us, p50 "
+                + (percentile(sorted, 50) / 1000) + "us, p90 "
+                + (percentile(sorted, 90) / 1000) + "us, max "
+                + (sorted[sorted.length - 1] / 1000) + "us, janky " + countJanky(sorted);
+    }
+
+    /**
+     * Records the time between consecutive frames until it is stopped
+     */
+    private static class FrameRecorder implements Choreographer.FrameCallback {
+        private final List<Long> mDurations = new ArrayList<>();
+        private long mLastFrameTime;
+        private boolean mStopped;
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mStopped) {
+                return;
+            }
+            if (mLastFrameTime != 0) {
+                mDurations.add(frameTimeNanos - mLastFrameTime);
+            }
+            mLastFrameTime = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        private void stop() {
+            mStopped = true;
+        }
+
+        private long[] getFrameDurations() {
+            long[] durations = new long[mDurations.size()];
+            for (int i = 0; i < durations.length; i++) {
+                durations[i] = mDurations.get(i);
+            }
+            return durations;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.android.readnewsapp;
+
+import android.app.Instrumentation;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Instrumentation test, which launches {@link MainActivity} a number of times and reports
+ * the time to initial display & the time to first article measured by {@link StartupTrace}.
+ * The first launch is reported on its own: it is the only one in a new process (when the
+ * test runs alone). The later launches are warm starts in the same process; all the caches
+ * of the {@link CacheManager} are emptied before each of them, so their first article is
+ * fetched from the network and not served from the response cache.
+ * For real cold starts run the test with the app process killed in between, or read the
+ * "Displayed" & "Fully drawn" lines of the logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupTimingTest {
+
+    private static final String LOG_TAG = StartupTimingTest.class.getSimpleName();
+
+    private static final int LAUNCH_COUNT = 6;
+    private static final long INITIAL_DISPLAY_TIMEOUT = 5000; // milliseconds
+    private static final long FIRST_ARTICLE_TIMEOUT = 15000; // milliseconds
+    private static final long NOT_REACHED = -1;
+
+    @Rule
+    public ActivityTestRule<MainActivity> mActivityRule =
+            new ActivityTestRule<>(MainActivity.class, false, false);
+
+    @Test
+    public void reportStartupTimings() throws Exception {
+        long[] initialDisplay = new long[LAUNCH_COUNT];
+        long[] firstArticle = new long[LAUNCH_COUNT];
+        for (int i = 0; i < LAUNCH_COUNT; i++) {
+            if (i > 0) {
+                // Empty the caches, so the launch doesn't get the News of the launch before
+                CacheManager.init(InstrumentationRegistry.getTargetContext()).evictAll();
+            }
+            MainActivity activity = mActivityRule.launchActivity(null);
+            initialDisplay[i] = waitFor(true, INITIAL_DISPLAY_TIMEOUT);
+            // Without an Internet connection no article is shown, that is reported as -1
+            firstArticle[i] = waitFor(false, FIRST_ARTICLE_TIMEOUT);
+            activity.finish();
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        }
+
+        long[] warmInitialDisplay = Arrays.copyOfRange(initialDisplay, 1, LAUNCH_COUNT);
+        long[] warmFirstArticle = Arrays.copyOfRange(firstArticle, 1, LAUNCH_COUNT);
+        String report = "first launch: time to initial display " + format(initialDisplay[0])
+                + ", time to first article " + format(firstArticle[0])
+                + "\nwarm launches, caches emptied: time to initial display "
+                + summarize(warmInitialDisplay)
+                + "\nwarm launches, caches emptied: time to first article "
+                + summarize(warmFirstArticle);
+        Log.i(LOG_TAG, report);
+
+        Bundle results = new Bundle();
+        results.putString(Instrumentation.REPORT_KEY_STREAMRESULT, report + "\n");
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        for (long time : initialDisplay) {
+            assertTrue(report, time >= 0);
+        }
+    }
+
+    /**
+     * Wait until the given milestone is reached and return its time,
+     * or -1 if it isn't reached within the timeout
+     */
+    private static long waitFor(boolean initialDisplay, long timeout) {
+        long deadline = SystemClock.uptimeMillis() + timeout;
+        while (SystemClock.uptimeMillis() < deadline) {
+            long time = initialDisplay
+                    ? StartupTrace.getTimeToInitialDisplay() : StartupTrace.getTimeToFirstArticle();
+            if (time >= 0) {
+                return time;
+            }
+            SystemClock.sleep(10);
+        }
+        return NOT_REACHED;
+    }
+
+    private static String format(long time) {
+        return time == NOT_REACHED ? "not reached" : time + " ms";
+    }
+
+    /**
+     * Summarize the times that were reached; the launches that didn't reach the milestone
+     * (offline or timed out) are only counted
+     */
+    private static String summarize(long[] times) {
+        long[] reached = new long[times.length];
+        int count = 0;
+        for (long time : times) {
+            if (time != NOT_REACHED) {
+                reached[count++] = time;
+            }
+        }
+        int missed = times.length - count;
+        if (count == 0) {
+            return "not reached in any of " + times.length + " launches";
+        }
+        long[] sorted = Arrays.copyOf(reached, count);
+        Arrays.sort(sorted);
+        return Arrays.toString(sorted) + " ms, median " + sorted[(count - 1) / 2]
+                + " ms, min " + sorted[0] + " ms, max " + sorted[count - 1] + " ms"
+                + (missed > 0 ? ", not reached in " + missed + " launches" : "");
+    }
+}
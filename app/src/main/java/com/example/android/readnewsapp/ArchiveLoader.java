@@ -0,0 +1,84 @@
+package com.example.android.readnewsapp;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import com.example.android.readnewsapp.core.News;
+
+import java.util.List;
+
+/**
+ * Loads the News Articles of the last days from the {@link ArticleArchive}.
+ */
+
+public class ArchiveLoader extends AsyncTaskLoader<List<News>> {
+
+    /**
+     * Number of days (including today) to load from the archive
+     */
+    private int mDays;
+
+    /**
+     * The last loaded News Articles, delivered again when the loader is started
+     */
+    private List<News> mNews;
+
+    /**
+     * Constructs a new {@link ArchiveLoader}.
+     *
+     * @param context of the activity
+     * @param days    is the number of days (including today) to load
+     */
+    public ArchiveLoader(Context context, int days) {
+        super(context);
+        mDays = days;
+    }
+
+    /**
+     * Deliver the loaded News Articles if there are, so coming back to the activity
+     * (e.g. from the browser) doesn't scan the archive again
+     */
+    @Override
+    protected void onStartLoading() {
+        if (mNews != null) {
+            deliverResult(mNews);
+        }
+        if (takeContentChanged() || mNews == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    public void deliverResult(List<News> news) {
+        if (isReset()) {
+            return;
+        }
+        mNews = news;
+        if (isStarted()) {
+            super.deliverResult(news);
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        onStopLoading();
+        mNews = null;
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public List<News> loadInBackground() {
+        // The read index is needed to dim the Articles the user has already read
+        ReadStateIndex.getReadIndex(getContext()).ensureLoaded();
+
+        return ArticleArchive.getInstance(getContext())
+                .scan(ArticleArchive.dayKey(mDays - 1), ArticleArchive.dayKey(0));
+    }
+}
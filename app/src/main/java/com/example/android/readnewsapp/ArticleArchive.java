@@ -0,0 +1,504 @@
+package com.example.android.readnewsapp;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.android.readnewsapp.core.LongHashSet;
+import com.example.android.readnewsapp.core.News;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The ArticleArchive keeps every fetched News Article on disk, split in one segment per
+ * publication day (UTC, like the dates of the Guardian API). Each day has:
+ * - a segment file "yyyy-MM-dd.seg" where new Articles are appended, one record each:
+ *   the length of the record followed by its five fields in modified UTF-8,
+ * - a compacted file "yyyy-MM-dd.cseg" with the Articles sorted newest first,
+ * - an index file "yyyy-MM-dd.idx" with the 64-bit url hashes of the day's Articles,
+ * so an Article is archived only once.
+ * Old days are deleted by the retention policy and the segments of past days are
+ * compacted in the background, so the cost of a range scan only depends on the
+ * days it covers and not on the size of the whole archive.
+ */
+
+public class ArticleArchive {
+
+    /**
+     * Tag for log messages
+     */
+    private static final String LOG_TAG = ArticleArchive.class.getSimpleName();
+
+    private static final String ARCHIVE_DIR = "archive";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COMPACTED_SUFFIX = ".cseg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Length of a day key "yyyy-MM-dd"
+     */
+    private static final int DAY_KEY_LENGTH = 10;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    /**
+     * Maximum length (in bytes) of a field in modified UTF-8 & of a whole record
+     */
+    private static final int MAX_FIELD_LENGTH = 65535;
+    private static final int MAX_RECORD_LENGTH = 5 * (2 + MAX_FIELD_LENGTH);
+
+    /**
+     * Minimum time (in milliseconds) between two maintenance runs
+     */
+    private static final long MAINTENANCE_INTERVAL = 60 * 60 * 1000;
+
+    /**
+     * Appends, retention & compaction run one after the other on this background thread
+     */
+    private static final Executor MAINTENANCE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Sorts News Articles newest first. The "yyyy-MM-dd HH:mm" dates sort as Strings.
+     */
+    private static final Comparator<News> NEWEST_FIRST = new Comparator<News>() {
+        @Override
+        public int compare(News first, News second) {
+            return second.getDateTime().compareTo(first.getDateTime());
+        }
+    };
+
+    private static ArticleArchive sInstance;
+
+    private final File mDir;
+
+    /**
+     * The url indexes of the days that have been loaded
+     */
+    private final Map<String, LongHashSet> mIndexes = new HashMap<>();
+    private long mLastMaintenance = -MAINTENANCE_INTERVAL;
+
+    /**
+     * Constructs a new {@link ArticleArchive} in the given directory.
+     * The app uses the shared archive of {@link #getInstance(Context)}.
+     */
+    ArticleArchive(File dir) {
+        mDir = dir;
+    }
+
+    /**
+     * Return the archive of the app
+     */
+    public static synchronized ArticleArchive getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleArchive(new File(context.getFilesDir(), ARCHIVE_DIR));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the day key "yyyy-MM-dd" of the given number of days before today
+     */
+    public static String dayKey(int daysAgo) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(System.currentTimeMillis() - daysAgo * DAY_MILLIS));
+    }
+
+    /**
+     * Return the day key of the publication date of the given News Article
+     */
+    private static String dayKeyOf(News news) {
+        String dateTime = news.getDateTime();
+        if (dateTime == null || dateTime.length() < DAY_KEY_LENGTH) {
+            return dayKey(0);
+        }
+        return dateTime.substring(0, DAY_KEY_LENGTH);
+    }
+
+    /**
+     * Append the News Articles that aren't archived yet to the segments of their days.
+     * This is a disk write, so call it on a background thread.
+     */
+    public synchronized void append(List<News> news) {
+        if (news == null || news.isEmpty()) {
+            return;
+        }
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            Log.e(LOG_TAG, "Problem creating the archive directory");
+            return;
+        }
+
+        // Group the new Articles by day
+        Map<String, List<News>> newsByDay = new HashMap<>();
+        for (News currentNews : news) {
+            String day = dayKeyOf(currentNews);
+            if (loadIndex(day).contains(currentNews.getUrlHash())) {
+                continue;
+            }
+            List<News> dayNews = newsByDay.get(day);
+            if (dayNews == null) {
+                dayNews = new ArrayList<>();
+                newsByDay.put(day, dayNews);
+            }
+            dayNews.add(currentNews);
+        }
+
+        for (Map.Entry<String, List<News>> entry : newsByDay.entrySet()) {
+            String day = entry.getKey();
+            List<News> dayNews = entry.getValue();
+            try {
+                writeNews(new File(mDir, day + SEGMENT_SUFFIX), dayNews, true);
+                writeIndex(new File(mDir, day + INDEX_SUFFIX), dayNews, true);
+                LongHashSet index = loadIndex(day);
+                for (News currentNews : dayNews) {
+                    index.add(currentNews.getUrlHash());
+                }
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem appending to the archive segment " + day, e);
+            }
+        }
+    }
+
+    /**
+     * Append the News Articles on the background thread of the archive
+     * and then schedule the maintenance.
+     *
+     * @param retentionDays is the number of days the archived Articles are kept
+     */
+    public void appendLater(final List<News> news, final int retentionDays) {
+        MAINTENANCE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                append(news);
+                scheduleMaintenance(retentionDays);
+            }
+        });
+    }
+
+    /**
+     * Return the archived News Articles published from the first up to the last day
+     * (both "yyyy-MM-dd" and inclusive), newest first.
+     * This is a disk read, so call it on a background thread.
+     */
+    public synchronized List<News> scan(String fromDay, String toDay) {
+        List<News> result = new ArrayList<>();
+        for (String day : listDays().descendingSet()) {
+            if (day.compareTo(fromDay) < 0 || day.compareTo(toDay) > 0) {
+                continue;
+            }
+            result.addAll(readDay(day));
+        }
+        return result;
+    }
+
+    /**
+     * Apply the retention policy and compact the segments of past days in the background.
+     * Runs at most once every {@link #MAINTENANCE_INTERVAL}.
+     *
+     * @param retentionDays is the number of days the archived Articles are kept
+     */
+    public void scheduleMaintenance(final int retentionDays) {
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            if (now - mLastMaintenance < MAINTENANCE_INTERVAL) {
+                return;
+            }
+            mLastMaintenance = now;
+        }
+
+        MAINTENANCE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                applyRetention(retentionDays);
+                compact();
+            }
+        });
+    }
+
+    /**
+     * Delete all the files of the days before the retention period.
+     * Today is one of the kept days, so the oldest kept day is retentionDays - 1 days ago.
+     */
+    void applyRetention(int retentionDays) {
+        String oldestDay = dayKey(retentionDays - 1);
+        for (String day : listDays()) {
+            if (day.compareTo(oldestDay) < 0) {
+                synchronized (this) {
+                    deleteIfExists(new File(mDir, day + SEGMENT_SUFFIX));
+                    deleteIfExists(new File(mDir, day + COMPACTED_SUFFIX));
+                    deleteIfExists(new File(mDir, day + INDEX_SUFFIX));
+                    mIndexes.remove(day);
+                }
+                Log.v(LOG_TAG, "Deleted archive day " + day);
+            }
+        }
+    }
+
+    /**
+     * Merge the appended segment of every past day into its compacted file,
+     * sorted newest first and without duplicates, and rewrite its url index.
+     * Today's segment is still growing, so it is left as it is.
+     * The files are read & written without the lock of the archive, so scans and appends
+     * aren't blocked meanwhile; only the swap of the files holds it. A segment that grew
+     * during the rewrite is compacted by the next maintenance run instead.
+     */
+    void compact() {
+        String today = dayKey(0);
+        for (String day : listDays()) {
+            File segment = new File(mDir, day + SEGMENT_SUFFIX);
+            if (day.compareTo(today) >= 0 || !segment.exists()) {
+                continue;
+            }
+            long segmentLength = segment.length();
+
+            List<News> dayNews = readDay(day);
+            File compacted = new File(mDir, day + COMPACTED_SUFFIX);
+            File compactedTemp = new File(mDir, day + COMPACTED_SUFFIX + TEMP_SUFFIX);
+            File index = new File(mDir, day + INDEX_SUFFIX);
+            File indexTemp = new File(mDir, day + INDEX_SUFFIX + TEMP_SUFFIX);
+            try {
+                writeNews(compactedTemp, dayNews, false);
+                writeIndex(indexTemp, dayNews, false);
+                synchronized (this) {
+                    if (segment.length() != segmentLength) {
+                        deleteIfExists(compactedTemp);
+                        deleteIfExists(indexTemp);
+                        continue;
+                    }
+                    if (!compactedTemp.renameTo(compacted) || !indexTemp.renameTo(index)) {
+                        throw new IOException("Problem renaming the compacted files");
+                    }
+                    deleteIfExists(segment);
+                    mIndexes.remove(day);
+                }
+                Log.v(LOG_TAG, "Compacted archive day " + day + " (" + dayNews.size() + " articles)");
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem compacting the archive segment " + day, e);
+                deleteIfExists(compactedTemp);
+                deleteIfExists(indexTemp);
+            }
+        }
+    }
+
+    /**
+     * Return the sorted day keys of the archive
+     */
+    private TreeSet<String> listDays() {
+        TreeSet<String> days = new TreeSet<>();
+        String[] names = mDir.list();
+        if (names == null) {
+            return days;
+        }
+        for (String name : names) {
+            if (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPACTED_SUFFIX)) {
+                days.add(name.substring(0, DAY_KEY_LENGTH));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Return the News Articles of the given day without duplicates, newest first
+     */
+    private List<News> readDay(String day) {
+        List<News> dayNews = new ArrayList<>();
+        LongHashSet urls = new LongHashSet();
+        readNews(new File(mDir, day + COMPACTED_SUFFIX), dayNews, urls);
+        readNews(new File(mDir, day + SEGMENT_SUFFIX), dayNews, urls);
+        Collections.sort(dayNews, NEWEST_FIRST);
+        return dayNews;
+    }
+
+    /**
+     * Return the url index of the given day, reading it from disk the first time
+     */
+    private LongHashSet loadIndex(String day) {
+        LongHashSet index = mIndexes.get(day);
+        if (index != null) {
+            return index;
+        }
+        index = new LongHashSet();
+        File file = new File(mDir, day + INDEX_SUFFIX);
+        if (file.exists()) {
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                long count = file.length() / 8;
+                for (long i = 0; i < count; i++) {
+                    index.add(in.readLong());
+                }
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem reading the archive index " + day, e);
+            } finally {
+                closeQuietly(in);
+            }
+        }
+        mIndexes.put(day, index);
+        return index;
+    }
+
+    private static void readNews(File file, List<News> news, LongHashSet urls) {
+        if (!file.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            while (true) {
+                int length = in.readInt();
+                if (length < 0 || length > MAX_RECORD_LENGTH) {
+                    Log.e(LOG_TAG, "Corrupted record in the archive segment " + file.getName());
+                    return;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                News currentNews = new News(recordIn.readUTF(), recordIn.readUTF(),
+                        recordIn.readUTF(), recordIn.readUTF(), recordIn.readUTF());
+                if (urls.add(currentNews.getUrlHash())) {
+                    news.add(currentNews);
+                }
+            }
+        } catch (EOFException e) {
+            // End of the segment, or a record cut short by a failed write
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the archive segment " + file.getName(), e);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Write the News Articles as whole records: every record is serialized in memory first,
+     * so a field that can't be written never leaves half a record in the file. If the file
+     * write itself fails, an appended file is cut back to its previous length.
+     */
+    private static void writeNews(File file, List<News> news, boolean append) throws IOException {
+        long previousLength = append ? file.length() : 0;
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(record);
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, append)));
+        try {
+            for (News currentNews : news) {
+                record.reset();
+                writeField(recordOut, currentNews.getTitle());
+                writeField(recordOut, currentNews.getSection());
+                writeField(recordOut, currentNews.getDescription());
+                writeField(recordOut, currentNews.getDateTime());
+                writeField(recordOut, currentNews.getUrl());
+                out.writeInt(record.size());
+                record.writeTo(out);
+            }
+            out.close();
+        } catch (IOException e) {
+            closeQuietly(out);
+            if (append) {
+                truncate(file, previousLength);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Write a field in modified UTF-8, cutting it to the maximum length of writeUTF() if needed
+     * (e.g. a very long description of an RSS feed)
+     */
+    private static void writeField(DataOutputStream out, String value) throws IOException {
+        String field = value == null ? "" : value;
+        try {
+            out.writeUTF(field);
+        } catch (UTFDataFormatException e) {
+            out.writeUTF(truncateToUtfLength(field, MAX_FIELD_LENGTH));
+        }
+    }
+
+    /**
+     * Return the longest start of the given text that is at most the given number of bytes
+     * in modified UTF-8, without splitting a surrogate pair
+     */
+    static String truncateToUtfLength(String text, int maxLength) {
+        int length = 0;
+        int end = 0;
+        while (end < text.length()) {
+            char c = text.charAt(end);
+            int charLength = c >= 0x0001 && c <= 0x007f ? 1 : c <= 0x07ff ? 2 : 3;
+            if (length + charLength > maxLength) {
+                break;
+            }
+            length += charLength;
+            end++;
+        }
+        if (end > 0 && end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static void truncate(File file, long length) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(length);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem restoring the archive segment " + file.getName(), e);
+        } finally {
+            closeQuietly(raf);
+        }
+    }
+
+    private static void writeIndex(File file, List<News> news, boolean append) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, append)));
+        try {
+            for (News currentNews : news) {
+                out.writeLong(currentNews.getUrlHash());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void deleteIfExists(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.e(LOG_TAG, "Problem deleting " + file.getName());
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem closing an archive file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.android.readnewsapp;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The CacheManager is the central registry for every in-memory cache of the app.
+ * It splits one byte budget (derived from the device memory class) between the
+ * registered caches and trims all of them together when the system is low on memory.
+ */
+
+public final class CacheManager implements ComponentCallbacks2 {
+
+    /**
+     * Tag for log messages
+     */
+    private static final String LOG_TAG = CacheManager.class.getSimpleName();
+
+    /**
+     * Fraction of the per-app heap (memory class) that all caches together may use
+     */
+    private static final int HEAP_FRACTION_DIVISOR = 8;
+
+    /**
+     * Names & shares (percent of the total budget) of the caches used by the app
+     */
+    public static final String RESPONSE_CACHE = "responses";
+    public static final String SPANNED_TEXT_CACHE = "spanned-text";
+    public static final String TEXT_LAYOUT_CACHE = "text-layouts";
+    public static final int RESPONSE_CACHE_SHARE = 40;
+    public static final int SPANNED_TEXT_CACHE_SHARE = 30;
+    public static final int TEXT_LAYOUT_CACHE_SHARE = 30;
+
+    private static CacheManager sInstance;
+
+    /**
+     * Total byte budget shared by all caches & the registered caches by name
+     */
+    private final int mTotalBudget;
+    private final Map<String, BudgetedCache<?, ?>> mCaches = new LinkedHashMap<>();
+    private int mAssignedShare;
+
+    private CacheManager(Context context) {
+        this(getTotalBudget(context));
+    }
+
+    /**
+     * Constructs a CacheManager with the given total byte budget, e.g. in a test
+     */
+    CacheManager(int totalBudget) {
+        mTotalBudget = totalBudget;
+        Log.v(LOG_TAG, "Total cache budget: " + mTotalBudget + " bytes");
+    }
+
+    /**
+     * Return the byte budget for the memory class of the device
+     */
+    private static int getTotalBudget(Context context) {
+        ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassBytes = activityManager.getMemoryClass() * 1024 * 1024;
+        return memoryClassBytes / HEAP_FRACTION_DIVISOR;
+    }
+
+    /**
+     * Initialize the CacheManager once (it is safe to call it again) and register it
+     * for the memory callbacks of the application.
+     */
+    public static synchronized CacheManager init(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            sInstance = new CacheManager(appContext);
+            appContext.registerComponentCallbacks(sInstance);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the CacheManager. {@link #init(Context)} must have been called before.
+     */
+    public static synchronized CacheManager getInstance() {
+        if (sInstance == null) {
+            throw new IllegalStateException("CacheManager.init() has not been called");
+        }
+        return sInstance;
+    }
+
+    /**
+     * Return the cache registered with the given name, or register a new one
+     * which gets the given share (percent) of the total budget.
+     *
+     * @param name         is the unique name of the cache
+     * @param sharePercent is the share of the total byte budget for this cache
+     * @param sizer        calculates the size in bytes of an entry
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <K, V> BudgetedCache<K, V> register(String name, int sharePercent,
+                                                          Sizer<K, V> sizer) {
+        BudgetedCache<?, ?> existing = mCaches.get(name);
+        if (existing != null) {
+            return (BudgetedCache<K, V>) existing;
+        }
+        if (sharePercent <= 0 || mAssignedShare + sharePercent > 100) {
+            throw new IllegalArgumentException("Invalid share " + sharePercent + "% for cache "
+                    + name + " (" + mAssignedShare + "% already assigned)");
+        }
+        mAssignedShare += sharePercent;
+
+        int budget = Math.max(1, (int) ((long) mTotalBudget * sharePercent / 100));
+        BudgetedCache<K, V> cache = new BudgetedCache<>(name, budget, sizer);
+        mCaches.put(name, cache);
+        return cache;
+    }
+
+    /**
+     * Trim all the caches to the given percent of their budget
+     */
+    private synchronized void trimAll(int keepPercent) {
+        for (BudgetedCache<?, ?> cache : mCaches.values()) {
+            cache.trimToPercent(keepPercent);
+        }
+        Log.v(LOG_TAG, "Trimmed caches to " + keepPercent + "%\n" + getOccupancyReport());
+    }
+
+    /**
+     * Empty all the caches, e.g. so a measurement doesn't profit from data of a run before it
+     */
+    public void evictAll() {
+        trimAll(0);
+    }
+
+    /**
+     * Return a human readable report with the occupancy of every registered cache
+     */
+    public synchronized String getOccupancyReport() {
+        StringBuilder report = new StringBuilder();
+        for (BudgetedCache<?, ?> cache : mCaches.values()) {
+            report.append(cache.getName())
+                    .append(": ").append(cache.size())
+                    .append('/').append(cache.maxSize())
+                    .append(" bytes, ").append(cache.hitCount())
+                    .append(" hits, ").append(cache.missCount())
+                    .append(" misses, ").append(cache.evictionCount())
+                    .append(" evictions\n");
+        }
+        return report.toString();
+    }
+
+    /**
+     * Staged eviction: the more critical the memory level, the less we keep
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            // The process is close to be killed, release everything
+            trimAll(0);
+        } else if (level >= TRIM_MEMORY_BACKGROUND) {
+            trimAll(25);
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            trimAll(50);
+        } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimAll(25);
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimAll(50);
+        } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            trimAll(75);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        trimAll(0);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Nothing to do, the budget does not depend on the configuration
+    }
+
+    /**
+     * Calculates the size in bytes of a cache entry
+     */
+    public interface Sizer<K, V> {
+        int sizeOf(K key, V value);
+    }
+
+    /**
+     * A {@link LruCache} that measures its entries in bytes with a {@link Sizer}
+     */
+    public static final class BudgetedCache<K, V> extends LruCache<K, V> {
+
+        private final String mName;
+        private final Sizer<K, V> mSizer;
+
+        private BudgetedCache(String name, int maxBytes, Sizer<K, V> sizer) {
+            super(maxBytes);
+            mName = name;
+            mSizer = sizer;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        @Override
+        protected int sizeOf(K key, V value) {
+            return mSizer.sizeOf(key, value);
+        }
+
+        private void trimToPercent(int keepPercent) {
+            if (keepPercent <= 0) {
+                evictAll();
+            } else {
+                trimToSize((int) ((long) maxSize() * keepPercent / 100));
+            }
+        }
+    }
+}
@@ -1,20 +1,20 @@
 package com.example.android.readnewsapp;
 
 import android.app.LoaderManager;
-import android.content.Context;
 import android.content.Intent;
 import android.content.Loader;
-import android.content.SharedPreferences;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.design.widget.TabLayout;
 import android.support.v7.app.AppCompatActivity;
 import android.view.Gravity;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.AdapterView;
 import android.widget.ListView;
 import android.widget.ProgressBar;
@@ -22,13 +22,15 @@ import android.widget.SearchView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.example.android.readnewsapp.core.News;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import static android.widget.Toast.makeText;
 
 public class MainActivity extends AppCompatActivity
-        implements LoaderManager.LoaderCallbacks<List<News>> {
+        implements LoaderManager.LoaderCallbacks<List<News>>, NewsLoader.TextPrecomputerProvider {
 
     /**
      * Tag for log messages
@@ -36,16 +38,21 @@ public class MainActivity extends AppCompatActivity
     private static final String LOG_TAG = MainActivity.class.getName();
 
     /**
-     * Constant value for the earthquake loader ID. We can choose any integer.
-     * This really only comes into play if you're using multiple loaders.
+     * Every section tab has its own loader. Their IDs start from this value
+     * and the position of the tab is added to it.
      */
-    private static final int NEWS_LOADER_ID = 1;
+    private static final int SECTION_LOADER_ID_BASE = 100;
 
     /**
-     * URL for News Articles data from the Guardian API
+     * Tabs further than this from the selected tab lose their state & their loader
      */
-    private static final String GUARDIAN_API_SEARCH = "https://content.guardianapis.com/search?";
-    private static final String API_KEY = "test";
+    private static final int SECTION_KEEP_DISTANCE = 2;
+
+    /**
+     * Loader ID & number of days for the history of News Articles from the archive
+     */
+    private static final int ARCHIVE_LOADER_ID = 2;
+    private static final int HISTORY_DAYS = 14;
 
     /**
      * Global Variables for Adapter, SearchView, EmptyStateTextView,
@@ -58,43 +65,68 @@ public class MainActivity extends AppCompatActivity
     private String searchQuery;
     private ProgressBar loadingIndicator;
 
+    /**
+     * Lays out the text of the rows for the current width of the list, null until it is known.
+     * The loaders read it on their background threads.
+     */
+    private volatile RowTextPrecomputer mTextPrecomputer;
+
+    /**
+     * ListView, section tabs, the Guardian section (or tag) of every tab,
+     * the in-memory state of the tabs & the selected tab
+     */
+    private ListView mNewsListView;
+    private TabLayout mSectionTabs;
+    private String[] mSectionValues;
+    private final SectionStateCache mSectionStates = new SectionStateCache(SECTION_KEEP_DISTANCE);
+    private int mSelectedSection;
+    private boolean mShowingHistory;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.markActivityCreated();
         super.onCreate(savedInstanceState);
+
+        StartupTrace.beginSection("MainActivity.setContentView");
         setContentView(R.layout.activity_main);
+        StartupTrace.endSection();
+        StartupTrace.observeInitialDisplay(this);
 
         // Find a reference to the {@link ListView} in the layout
-        ListView newsListView = (ListView) findViewById(R.id.list);
-
-        // Create a new adapter that takes an empty list of News Articles as input
-        mAdapter = new NewsAdapter(this, new ArrayList<News>());
+        mNewsListView = (ListView) findViewById(R.id.list);
 
         //  Find and set Empty View (TextView) in activity_main.xml
         mEmptyStateTextView = (TextView) findViewById(R.id.empty_view);
-        newsListView.setEmptyView(mEmptyStateTextView);
-
-        // Set the adapter on the {@link ListView}
-        // so the list can be populated in the user interface
-        newsListView.setAdapter(mAdapter);
+        mNewsListView.setEmptyView(mEmptyStateTextView);
 
         // Prepare the loader
         loaderManager = getLoaderManager();
 
-        // Find the Progress Bar in the activity_main.xml
+        // Find the Progress Bar in the activity_main.xml,
+        // it is visible until the first section is loaded
         loadingIndicator = (ProgressBar) findViewById(R.id.loading_indicator);
 
-        // If the user has Internet connection
-        if (isConnected()) {
-            // Initialize the loader to fetch news articles from sports section
-            loaderManager.initLoader(NEWS_LOADER_ID, null, this);
-        } else {
-            // If there is no Internet connection, display error
-            // First, hide loading indicator
-            loadingIndicator.setVisibility(View.GONE);
-
-            // Update empty state with no connection error message
-            mEmptyStateTextView.setText(R.string.no_internet);
+        // Add a tab for every section of the News
+        StartupTrace.beginSection("MainActivity.addSectionTabs");
+        mSectionValues = getResources().getStringArray(R.array.section_values);
+        mSectionTabs = (TabLayout) findViewById(R.id.section_tabs);
+        for (String label : getResources().getStringArray(R.array.section_labels)) {
+            mSectionTabs.addTab(mSectionTabs.newTab().setText(label));
         }
+        StartupTrace.endSection();
+
+        // The caches, the adapter & the first load aren't needed for the first frame
+        // (the loading indicator), so they are set up right after it is drawn
+        runAfterFirstFrame(new Runnable() {
+            @Override
+            public void run() {
+                if (!isFinishing()) {
+                    StartupTrace.beginSection("MainActivity.deferredInit");
+                    initNewsList();
+                    StartupTrace.endSection();
+                }
+            }
+        });
 
         // Find the SearchView with id search_view in activity_main.xml
         mSearchView = (SearchView) findViewById(R.id.search_view);
@@ -103,6 +135,10 @@ public class MainActivity extends AppCompatActivity
             // Is triggered when the user submits the query
             @Override
             public boolean onQueryTextSubmit(String query) {
+                // The list isn't set up until the first frame is drawn
+                if (mAdapter == null) {
+                    return false;
+                }
                 // if the user is connected on the internet
                 if (isConnected()) {
                     // Get the value from the SearchView and hide the virtual keyboard
@@ -114,8 +150,13 @@ public class MainActivity extends AppCompatActivity
                     toast.setGravity(Gravity.CENTER | Gravity.CENTER_HORIZONTAL, 0, 0);
                     toast.show();
 
-                    // restart the loader with the new data
-                    loaderManager.restartLoader(1, null, MainActivity.this);
+                    // Leave the history (if it is shown), forget the results of all the tabs
+                    // & load the selected one with the new query
+                    leaveHistory();
+                    for (int position : mSectionStates.evictAll()) {
+                        loaderManager.destroyLoader(SECTION_LOADER_ID_BASE + position);
+                    }
+                    showSection(mSelectedSection);
                 } else {
                     // If there is no Internet, display error
                     // First, hide loading indicator
@@ -149,12 +190,15 @@ public class MainActivity extends AppCompatActivity
 
         // Set an item click listener on the ListView, which sends an intent to a web browser
         // to open a website with more information about the selected News.
-        newsListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        mNewsListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
                 // Find the current News Article that was clicked on
                 News currentNews = mAdapter.getItem(position);
 
+                // Remember that the user has read this News Article
+                mAdapter.markAsRead(currentNews, view);
+
                 // Convert the String URL into a URI object (to pass into the Intent constructor)
                 Uri newsUri = Uri.parse(currentNews.getUrl());
 
@@ -167,57 +211,244 @@ public class MainActivity extends AppCompatActivity
         });
     }
 
+    // Run the given task on the UI thread once the first frame of the activity is drawn
+    private void runAfterFirstFrame(final Runnable task) {
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // The view is attached by now, so the task is queued
+                        // after the traversal that draws this frame
+                        decorView.post(task);
+                        return true;
+                    }
+                });
+    }
+
+    // Create the adapter of the list and start loading the selected section
+    private void initNewsList() {
+        // Initialize the caches before the adapter & the loader use them
+        CacheManager.init(this);
+
+        // Create a new adapter that takes an empty list of News Articles as input
+        mAdapter = new NewsAdapter(this, new ArrayList<News>());
+
+        // The list is laid out by now, so the loaders can lay out the text of the rows
+        // for its width in the background. The width changes on rotation (the activity
+        // handles it itself) & in multi-window mode, then the precomputer is replaced.
+        updateTextPrecomputer();
+        mNewsListView.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
+            @Override
+            public void onLayoutChange(View view, int left, int top, int right, int bottom,
+                                       int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                if (right - left != oldRight - oldLeft) {
+                    updateTextPrecomputer();
+                }
+            }
+        });
+
+        // Set the adapter on the {@link ListView}
+        // so the list can be populated in the user interface
+        mNewsListView.setAdapter(mAdapter);
+
+        // The tabs switch the News of the list, so they are enabled along with the adapter
+        mSectionTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                selectSection(tab.getPosition());
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+            }
+
+            // Scroll back to the top of the list, or leave the history
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+                if (mShowingHistory) {
+                    selectSection(tab.getPosition());
+                } else {
+                    mNewsListView.setSelection(0);
+                }
+            }
+        });
+
+        // Show the selected section (the first one, all the sports News)
+        mSelectedSection = mSectionTabs.getSelectedTabPosition();
+        showSection(mSelectedSection);
+    }
+
+    // Create a precomputer for the current width of the list rows, if it has changed,
+    // and lay out the rows of the list on screen for it in the background
+    private void updateTextPrecomputer() {
+        int rowWidth = mNewsListView.getWidth()
+                - mNewsListView.getPaddingLeft() - mNewsListView.getPaddingRight();
+        if (rowWidth <= 0
+                || (mTextPrecomputer != null && mTextPrecomputer.getRowWidth() == rowWidth)) {
+            return;
+        }
+        final RowTextPrecomputer textPrecomputer =
+                mAdapter.createTextPrecomputer(mNewsListView, rowWidth);
+        mTextPrecomputer = textPrecomputer;
+
+        final List<News> news = new ArrayList<>(mAdapter.getCount());
+        for (int i = 0; i < mAdapter.getCount(); i++) {
+            news.add(mAdapter.getItem(i));
+        }
+        if (!news.isEmpty()) {
+            AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    textPrecomputer.precompute(news);
+                }
+            });
+        }
+    }
+
+    // The loaders ask for the precomputer when they have fetched the News
+    @Override
+    public RowTextPrecomputer getTextPrecomputer() {
+        return mTextPrecomputer;
+    }
+
     /*
-     * Read the user’s latest preferences for the maximum results and order by settings
-     * construct a proper URI with their preference,
-     * and then create a new Loader for that URI.
-     * Else, returns the Default URI for the Query
+     * Create a new Loader for the section of the given tab.
+     * The preferences are read & the URL is constructed by the loader, in the background.
    */
     @Override
     public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
 
-        // Hide Empty View in activity_main.xml when loader starts
-        mEmptyStateTextView.setVisibility(View.GONE);
+        // Prefetched tabs load in the background without touching the UI
+        if (i == ARCHIVE_LOADER_ID || i - SECTION_LOADER_ID_BASE == mSelectedSection) {
+            // Hide Empty View in activity_main.xml when loader starts
+            mEmptyStateTextView.setVisibility(View.GONE);
 
-        // Displays the Loading Indicator in activity_main.xml
-        loadingIndicator.setVisibility(View.VISIBLE);
+            // Displays the Loading Indicator in activity_main.xml
+            loadingIndicator.setVisibility(View.VISIBLE);
+        }
+
+        // The history is loaded from the archive on the device
+        if (i == ARCHIVE_LOADER_ID) {
+            return new ArchiveLoader(this, HISTORY_DAYS);
+        }
+
+        // RSS feeds can't be searched or filtered by section,
+        // so they are only added to the first tab (all the sports News)
+        int position = i - SECTION_LOADER_ID_BASE;
+        boolean includeFeeds = position == 0 && (searchQuery == null || searchQuery.isEmpty());
 
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
-        String maxNewsFeed = sharedPrefs.getString(
-                getString(R.string.settings_max_news_results_key),
-                getString(R.string.settings_max_news_results_default));
+        // Create a new loader for the section (or tag) of the tab
+        return new NewsLoader(this, mSectionValues[position], searchQuery, includeFeeds, this);
+    }
+
+    // Called when a loader has finished loading data
+    @Override
+    public void onLoadFinished(Loader<List<News>> loader, List<News> news) {
 
-        String orderBy = sharedPrefs.getString(
-                getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_by_default)
-        );
+        if (loader.getId() == ARCHIVE_LOADER_ID) {
+            // Clear the adapter of previous news data
+            mAdapter.clear();
 
-        // Constructs the Uri
-        Uri baseUri = Uri.parse(GUARDIAN_API_SEARCH);
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+            // Hide the loading indicator in activity_main.xml
+            loadingIndicator.setVisibility(View.GONE);
 
-        // If the user submitted a search query
-        // Add it to the Uri
-        if (searchQuery != null && !searchQuery.isEmpty()) {
-            uriBuilder.appendQueryParameter("q", searchQuery);
+            // If there is a valid list of {@link News} Articles, then add them to the adapter's
+            // data set. This will trigger the ListView to update.
+            if (news != null && !news.isEmpty()) {
+                mAdapter.addAll(news);
+            } else {
+                // Update empty state with no history found
+                mEmptyStateTextView.setText(R.string.no_history);
+            }
+            return;
         }
 
-        // Then add the Default Query Parameters
-        uriBuilder.appendQueryParameter("format", "json");
-        uriBuilder.appendQueryParameter("section", "sport");
-        uriBuilder.appendQueryParameter("show-fields", "trailText");
-        uriBuilder.appendQueryParameter("page-size", maxNewsFeed);
-        uriBuilder.appendQueryParameter("order-by", orderBy);
-        uriBuilder.appendQueryParameter("api-key", API_KEY);
+        // Without an Internet connection the tab has nothing to keep,
+        // it is loaded again the next time it is shown
+        int position = loader.getId() - SECTION_LOADER_ID_BASE;
+        if (((NewsLoader) loader).isOffline()) {
+            mSectionStates.remove(position);
+            if (position == mSelectedSection && !mShowingHistory) {
+                mAdapter.clear();
+
+                // If there is no Internet connection, display error
+                // First, hide loading indicator
+                loadingIndicator.setVisibility(View.GONE);
 
-        // Create a new loader for the given URI
-        return new NewsLoader(this, uriBuilder.toString());
+                // Update empty state with no connection error message
+                mEmptyStateTextView.setText(R.string.no_internet);
+            }
+            return;
+        }
+
+        // Keep the News Articles in the state of their tab
+        SectionStateCache.SectionState state = mSectionStates.getOrCreate(position);
+        boolean reloaded = state.loadState == SectionStateCache.STATE_LOADED;
+        state.loadState = SectionStateCache.STATE_LOADED;
+        state.news = news;
+        state.shown = false;
+
+        // Show them if their tab is the selected one, at the same scroll position if reloaded
+        if (position == mSelectedSection && !mShowingHistory) {
+            if (reloaded) {
+                saveScrollPosition(position);
+            }
+            displaySection(state);
+        }
     }
 
-    // Called when a loader has finished loading data
+    // Called when a previously created loader is being reset
     @Override
-    public void onLoadFinished(Loader<List<News>> loader, List<News> news) {
+    public void onLoaderReset(Loader<List<News>> loader) {
+
+        // Only the loader of the list on screen affects the UI
+        if (loader.getId() == ARCHIVE_LOADER_ID
+                || (loader.getId() - SECTION_LOADER_ID_BASE == mSelectedSection && !mShowingHistory)) {
+            // Loader reset, so we can clear out our existing data.
+            mAdapter.clear();
+
+            // Displays loading indicator in activity_main.xml
+            loadingIndicator.setVisibility(View.VISIBLE);
+        }
+    }
+
+    // Called when the user selects a section tab
+    private void selectSection(int position) {
+        // Remember the scroll position of the tab the user leaves
+        if (!mShowingHistory) {
+            saveScrollPosition(mSelectedSection);
+        }
+        leaveHistory();
+        mSelectedSection = position;
+        showSection(position);
+
+        // Forget the tabs that are far away, to bound the memory used by the states
+        for (int evicted : mSectionStates.evictFarFrom(position)) {
+            loaderManager.destroyLoader(SECTION_LOADER_ID_BASE + evicted);
+        }
+    }
+
+    // Show the state of the given tab, or start loading it if it has no state yet
+    private void showSection(int position) {
+        SectionStateCache.SectionState state = mSectionStates.get(position);
+        if (state == null) {
+            mAdapter.clear();
+            // The loader checks the Internet connection in the background
+            startSectionLoader(position);
+        } else if (state.loadState == SectionStateCache.STATE_LOADING) {
+            // The tab is still being loaded (e.g. prefetched), wait for onLoadFinished
+            mAdapter.clear();
+            mEmptyStateTextView.setVisibility(View.GONE);
+            loadingIndicator.setVisibility(View.VISIBLE);
+        } else {
+            displaySection(state);
+        }
+    }
 
+    // Show the News Articles of a loaded tab at its last scroll position
+    private void displaySection(SectionStateCache.SectionState state) {
         // Clear the adapter of previous news data
         mAdapter.clear();
 
@@ -226,35 +457,103 @@ public class MainActivity extends AppCompatActivity
 
         // If there is a valid list of {@link News} Articles, then add them to the adapter's
         // data set. This will trigger the ListView to update.
-        if (news != null && !news.isEmpty()) {
-            mAdapter.addAll(news);
+        if (state.news != null && !state.news.isEmpty()) {
+            mAdapter.addAll(state.news);
+            mNewsListView.setSelectionFromTop(state.firstVisiblePosition, state.topOffset);
+            StartupTrace.markFirstArticle(this);
+            if (!state.shown) {
+                state.shown = true;
+                showNewArticlesCount(state.news);
+            }
         } else {
             // Update empty state with no results found
             mEmptyStateTextView.setText(R.string.no_results);
         }
+
+        // The user will probably switch to a neighbouring tab next
+        prefetchAdjacentSectionsWhenIdle();
     }
 
-    // Called when a previously created loader is being reset
-    @Override
-    public void onLoaderReset(Loader<List<News>> loader) {
+    // Remember the scroll position of the given tab, if it is loaded
+    private void saveScrollPosition(int position) {
+        SectionStateCache.SectionState state = mSectionStates.get(position);
+        if (state == null || state.loadState != SectionStateCache.STATE_LOADED) {
+            return;
+        }
+        state.firstVisiblePosition = mNewsListView.getFirstVisiblePosition();
+        View firstItemView = mNewsListView.getChildAt(0);
+        state.topOffset = firstItemView == null
+                ? 0 : firstItemView.getTop() - mNewsListView.getPaddingTop();
+    }
 
-        // Loader reset, so we can clear out our existing data.
-        mAdapter.clear();
+    // Start loading the tabs next to the selected one, once the UI thread is idle
+    private void prefetchAdjacentSectionsWhenIdle() {
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (!isFinishing()) {
+                    prefetchSection(mSelectedSection - 1);
+                    prefetchSection(mSelectedSection + 1);
+                }
+                // Run only once
+                return false;
+            }
+        });
+    }
 
-        // Displays loading indicator in activity_main.xml
-        loadingIndicator.setVisibility(View.VISIBLE);
+    private void prefetchSection(int position) {
+        if (position < 0 || position >= mSectionValues.length
+                || mSectionStates.get(position) != null) {
+            return;
+        }
+        startSectionLoader(position);
+    }
+
+    // Start loading the given tab. A loader that found no Internet connection is restarted,
+    // any other one is reused (e.g. the loader of the tab before a rotation).
+    private void startSectionLoader(int position) {
+        mSectionStates.getOrCreate(position);
+        int loaderId = SECTION_LOADER_ID_BASE + position;
+        Loader<List<News>> loader = loaderManager.getLoader(loaderId);
+        if (loader instanceof NewsLoader && ((NewsLoader) loader).isOffline()) {
+            loaderManager.restartLoader(loaderId, null, this);
+        } else {
+            loader = loaderManager.initLoader(loaderId, null, this);
+            // A loader kept from an activity before this one asks this one for the precomputer
+            ((NewsLoader) loader).setTextPrecomputerProvider(this);
+        }
+    }
+
+    // Go back from the history to the News of the selected tab
+    private void leaveHistory() {
+        if (mShowingHistory) {
+            mShowingHistory = false;
+            loaderManager.destroyLoader(ARCHIVE_LOADER_ID);
+        }
+    }
+
+    // Count the News Articles that the loader flagged as not shown before & inform the user.
+    // They are marked as seen by the adapter when their rows are shown.
+    private void showNewArticlesCount(List<News> news) {
+        int newCount = 0;
+        for (News currentNews : news) {
+            if (currentNews.isNew()) {
+                newCount++;
+            }
+        }
+
+        if (newCount > 0) {
+            Toast toast = makeText(getApplicationContext(),
+                    getResources().getQuantityString(R.plurals.new_articles, newCount, newCount),
+                    Toast.LENGTH_SHORT);
+            toast.setGravity(Gravity.CENTER | Gravity.CENTER_HORIZONTAL, 0, 0);
+            toast.show();
+        }
     }
 
     // This method checks if the user has Internet connection
     private boolean isConnected() {
-        // Get a reference to the ConnectivityManager to check state of network connectivity
-        ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-
-        // Get details on the currently active default data network
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        // boolean to check if there is a network connection
-        return activeNetwork != null &&
-                activeNetwork.isConnectedOrConnecting();
+        return QueryUtils.isConnected(this);
     }
 
     // Inflate the menu
@@ -271,6 +570,15 @@ public class MainActivity extends AppCompatActivity
             Intent settingsIntent = new Intent(this, SettingsActivity.class);
             startActivity(settingsIntent);
             return true;
+        } else if (id == R.id.action_history && mAdapter != null) {
+            // Show the News Articles of the last days from the archive,
+            // the section tabs keep their state meanwhile
+            if (!mShowingHistory) {
+                saveScrollPosition(mSelectedSection);
+                mShowingHistory = true;
+            }
+            loaderManager.restartLoader(ARCHIVE_LOADER_ID, null, this);
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
@@ -4,12 +4,15 @@ import android.app.Activity;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.Html;
+import android.text.Spanned;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.TextView;
 
+import com.example.android.readnewsapp.core.News;
+
 import java.util.ArrayList;
 
 /**
@@ -18,6 +21,33 @@ import java.util.ArrayList;
 
 public class NewsAdapter extends ArrayAdapter<News> {
 
+    /**
+     * Approximate size (in bytes) of a single span of a {@link Spanned} text
+     */
+    private static final int SPAN_OVERHEAD = 32;
+
+    /**
+     * Alpha of the list items of the News Articles the user has already read
+     */
+    private static final float READ_ITEM_ALPHA = 0.5f;
+
+    /**
+     * Cache of the HTML descriptions converted to {@link Spanned} text,
+     * so Html.fromHtml() doesn't run again every time a row is recycled
+     */
+    private final CacheManager.BudgetedCache<String, Spanned> mSpannedTextCache;
+
+    /**
+     * Indexes of the News Articles the user has already opened & already been shown
+     */
+    private final ReadStateIndex mReadIndex;
+    private final ReadStateIndex mSeenIndex;
+
+    /**
+     * Builds the text Layouts of the rows in the background, null until it is created
+     */
+    private RowTextPrecomputer mTextPrecomputer;
+
     /**
      * Constructs a new {@link NewsAdapter} object.
      *
@@ -27,6 +57,37 @@ public class NewsAdapter extends ArrayAdapter<News> {
     public NewsAdapter(Activity context, ArrayList<News> news) {
         // Here, we initialize the ArrayAdapter's internal storage for the context and the list.
         super(context, 0, news);
+        mSpannedTextCache = getSpannedTextCache();
+        mReadIndex = ReadStateIndex.getReadIndex(context);
+        mSeenIndex = ReadStateIndex.getSeenIndex(context);
+    }
+
+    /**
+     * Return the spanned text cache, registering it on the {@link CacheManager} the first time.
+     */
+    static CacheManager.BudgetedCache<String, Spanned> getSpannedTextCache() {
+        return CacheManager.getInstance().register(
+                CacheManager.SPANNED_TEXT_CACHE, CacheManager.SPANNED_TEXT_CACHE_SHARE,
+                new CacheManager.Sizer<String, Spanned>() {
+                    @Override
+                    public int sizeOf(String html, Spanned spanned) {
+                        int spans = spanned.getSpans(0, spanned.length(), Object.class).length;
+                        return 2 * (html.length() + spanned.length()) + spans * SPAN_OVERHEAD;
+                    }
+                });
+    }
+
+    /**
+     * Return the {@link Spanned} text for the given HTML, from the cache if possible.
+     */
+    @SuppressWarnings("deprecation")
+    static Spanned getSpannedText(CacheManager.BudgetedCache<String, Spanned> cache, String html) {
+        Spanned spanned = cache.get(html);
+        if (spanned == null) {
+            spanned = Html.fromHtml(html);
+            cache.put(html, spanned);
+        }
+        return spanned;
     }
 
     /*
@@ -55,45 +116,90 @@ public class NewsAdapter extends ArrayAdapter<News> {
         // Find the News Article at the given position in the list of News Articles
         News currentNews = getItem(position);
 
-        // Get the title string from the News Article object
-        String title = currentNews.getTitle();
-        // Set the title of the current News Article in that TextView
-        viewHolder.titleTextView.setText(title);
-
-        // Get the Author string from the News Article object
-        String description = currentNews.getDescription();
-        // Set the Author Name of the current News Article in that TextView
-        viewHolder.descriptionTextView.setText(Html.fromHtml(description));
+        // Use the Layouts of the title & description built in the background if there are,
+        // otherwise the views lay out the text themselves
+        RowTextPrecomputer.RowLayouts layouts = mTextPrecomputer == null
+                ? null : mTextPrecomputer.getLayouts(currentNews);
+        if (layouts != null) {
+            viewHolder.titleTextView.setLayout(layouts.getTitle());
+            viewHolder.descriptionTextView.setLayout(layouts.getDescription());
+        } else {
+            // Get the title string from the News Article object
+            String title = currentNews.getTitle();
+            // Set the title of the current News Article in that view
+            viewHolder.titleTextView.setText(title);
+
+            // Get the Author string from the News Article object
+            String description = currentNews.getDescription();
+            // Set the Author Name of the current News Article in that view
+            viewHolder.descriptionTextView.setText(getSpannedText(mSpannedTextCache, description));
+        }
 
         // Get the Section Name string from the News Article object
         String section = currentNews.getSection();
         // Set the Section Name of the current News Article in that TextView
         viewHolder.sectionTextView.setText(section);
 
+        // Label the News Article if it hadn't been shown when it was loaded
+        // & remember that it has been shown now
+        if (currentNews.isNew()) {
+            viewHolder.newTextView.setVisibility(View.VISIBLE);
+            mSeenIndex.add(currentNews.getUrlHash());
+        } else {
+            viewHolder.newTextView.setVisibility(View.GONE);
+        }
+
         // Get the Date from the News Article object
         String dateTime = currentNews.getDateTime();
         // Set the Date of the current News Article in that TextView
         viewHolder.dateTimeTextView.setText(dateTime);
 
+        // Dim the News Article if the user has already read it
+        listItemView.setAlpha(mReadIndex.contains(currentNews.getUrlHash()) ? READ_ITEM_ALPHA : 1f);
+
         return listItemView;
     }
 
+    /**
+     * Create a {@link RowTextPrecomputer} with the text styles of list_item.xml
+     * for rows of the given width (in pixels). The adapter uses the Layouts it builds.
+     */
+    public RowTextPrecomputer createTextPrecomputer(ViewGroup parent, int rowWidth) {
+        View listItemView = LayoutInflater.from(getContext()).inflate(
+                R.layout.list_item, parent, false);
+        ViewHolder viewHolder = new ViewHolder(listItemView);
+        mTextPrecomputer = new RowTextPrecomputer(viewHolder.titleTextView,
+                viewHolder.descriptionTextView, rowWidth);
+        return mTextPrecomputer;
+    }
+
+    /**
+     * Mark the given News Article as read & dim its list item view
+     */
+    public void markAsRead(News news, View listItemView) {
+        mReadIndex.add(news.getUrlHash());
+        listItemView.setAlpha(READ_ITEM_ALPHA);
+    }
+
     // We use inner Class ViewHolder to find & handle the views in list_item.xml
     // This Article (from Vlad) helped --> http://spreys.com/view-holder-design-pattern-for-android/
 
     private class ViewHolder {
-        private TextView titleTextView;
-        private TextView descriptionTextView;
+        private PrecomputedTextView titleTextView;
+        private PrecomputedTextView descriptionTextView;
         private TextView sectionTextView;
+        private TextView newTextView;
         private TextView dateTimeTextView;
 
         private ViewHolder(@NonNull View view) {
-            this.titleTextView = (TextView) view
+            this.titleTextView = (PrecomputedTextView) view
                     .findViewById(R.id.title_text_view);
-            this.descriptionTextView = (TextView) view
+            this.descriptionTextView = (PrecomputedTextView) view
                     .findViewById(R.id.description_text_view);
             this.sectionTextView = (TextView) view
                     .findViewById(R.id.section_text_view);
+            this.newTextView = (TextView) view
+                    .findViewById(R.id.new_text_view);
             this.dateTimeTextView = (TextView) view
                     .findViewById(R.id.date_text_view);
         }
@@ -2,7 +2,17 @@ package com.example.android.readnewsapp;
 
 import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
 
+import com.example.android.readnewsapp.core.GuardianNewsSource;
+import com.example.android.readnewsapp.core.GuardianQuery;
+import com.example.android.readnewsapp.core.News;
+import com.example.android.readnewsapp.core.NewsSource;
+import com.example.android.readnewsapp.core.RssNewsSource;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,24 +27,137 @@ public class NewsLoader extends AsyncTaskLoader<List<News>> {
     private static final String LOG_TAG = NewsLoader.class.getName();
 
     /**
-     * Query URL
+     * Guardian section (e.g. "football") or sport tag (e.g. "sport/tennis"), the search query
+     * of the user (may be null) & whether the RSS feeds are added to the Guardian News
+     */
+    private String mSectionValue;
+    private String mSearchQuery;
+    private boolean mIncludeFeeds;
+
+    /**
+     * Gives the precomputer for the current width of the list. It is the activity,
+     * which is only weakly referenced, as the loader can outlive it.
+     */
+    private volatile WeakReference<TextPrecomputerProvider> mTextPrecomputerProvider;
+
+    /**
+     * True if the last load found no Internet connection
+     */
+    private volatile boolean mOffline;
+
+    /**
+     * The last loaded News Articles, delivered again when the loader is started
      */
-    private String mUrl;
+    private List<News> mNews;
+
+    /**
+     * Reloads the News when a preference that changes the query is changed.
+     * SharedPreferences only keeps a weak reference to it, so the loader holds it.
+     */
+    private SharedPreferences.OnSharedPreferenceChangeListener mPreferenceListener;
 
     /**
      * Constructs a new {@link NewsLoader}.
      *
-     * @param context of the activity
-     * @param url     to load data from
+     * @param context          of the activity
+     * @param sectionValue     is the Guardian section or sport tag to load
+     * @param searchQuery      is the search query of the user, or null
+     * @param includeFeeds     adds the News of the RSS feeds to the Guardian ones
+     * @param textPrecomputers gives the precomputer that lays out the text of the list rows
      */
-    public NewsLoader(Context context, String url) {
+    public NewsLoader(Context context, String sectionValue, String searchQuery,
+                      boolean includeFeeds, TextPrecomputerProvider textPrecomputers) {
         super(context);
-        mUrl = url;
+        mSectionValue = sectionValue;
+        mSearchQuery = searchQuery;
+        mIncludeFeeds = includeFeeds;
+        setTextPrecomputerProvider(textPrecomputers);
     }
 
+    /**
+     * Gives the {@link RowTextPrecomputer} for the current width of the list rows
+     */
+    public interface TextPrecomputerProvider {
+        /**
+         * Return the precomputer for the current width of the rows, or null if the width
+         * isn't known yet. Called on the loader's background thread.
+         */
+        RowTextPrecomputer getTextPrecomputer();
+    }
+
+    /**
+     * Set the provider of the precomputer, e.g. the activity that uses a retained loader
+     */
+    public void setTextPrecomputerProvider(TextPrecomputerProvider textPrecomputers) {
+        mTextPrecomputerProvider = new WeakReference<>(textPrecomputers);
+    }
+
+    /**
+     * Return true if the last load found no Internet connection
+     */
+    public boolean isOffline() {
+        return mOffline;
+    }
+
+    /**
+     * Deliver the loaded News Articles if there are, so coming back to the activity
+     * (e.g. from the browser) doesn't fetch the tab again. Load only if there is nothing
+     * loaded yet (or the last load was offline) or a preference of the query has changed.
+     */
     @Override
     protected void onStartLoading() {
-        forceLoad();
+        if (mNews != null) {
+            deliverResult(mNews);
+        }
+        if (mPreferenceListener == null) {
+            registerPreferenceListener();
+        }
+        if (takeContentChanged() || mNews == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    public void deliverResult(List<News> news) {
+        if (isReset()) {
+            return;
+        }
+        mNews = news;
+        if (isStarted()) {
+            super.deliverResult(news);
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        onStopLoading();
+        mNews = null;
+        if (mPreferenceListener != null) {
+            PreferenceManager.getDefaultSharedPreferences(getContext())
+                    .unregisterOnSharedPreferenceChangeListener(mPreferenceListener);
+            mPreferenceListener = null;
+        }
+    }
+
+    private void registerPreferenceListener() {
+        final Context context = getContext();
+        mPreferenceListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+            @Override
+            public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+                if (key.equals(context.getString(R.string.settings_max_news_results_key))
+                        || key.equals(context.getString(R.string.settings_order_by_key))) {
+                    // Loads now if started, otherwise the next time it is started
+                    onContentChanged();
+                }
+            }
+        };
+        PreferenceManager.getDefaultSharedPreferences(context)
+                .registerOnSharedPreferenceChangeListener(mPreferenceListener);
     }
 
     /**
@@ -42,10 +165,121 @@ public class NewsLoader extends AsyncTaskLoader<List<News>> {
      */
     @Override
     public List<News> loadInBackground() {
-        if (mUrl == null) {
+        // The connectivity check is a call to a system service, so it runs here too
+        mOffline = !QueryUtils.isConnected(getContext());
+        if (mOffline) {
             return null;
         }
-        // Perform the network request, parse the response, and extract a list of news.
-        return QueryUtils.fetchNewsData(mUrl);
+
+        // Load the read & seen indexes from disk, before the list is bound
+        StartupTrace.beginSection("NewsLoader.loadIndexes");
+        ReadStateIndex.getReadIndex(getContext()).ensureLoaded();
+        ReadStateIndex.getSeenIndex(getContext()).ensureLoaded();
+        StartupTrace.endSection();
+
+        // Read the preferences & build the sources
+        StartupTrace.beginSection("NewsLoader.buildSources");
+        String orderBy = getOrderBy();
+        List<NewsSource> sources = buildSources(orderBy);
+        StartupTrace.endSection();
+
+        // Perform the network requests, parse the responses, and extract a list of news.
+        // Ordered by relevance, the Articles keep the order of the Guardian API (feeds after it).
+        StartupTrace.beginSection("NewsLoader.fetch");
+        boolean newestFirst = !orderBy.equals(
+                getContext().getString(R.string.settings_order_by_relevance_value));
+        List<News> news = QueryUtils.fetchNewsData(sources, newestFirst);
+        StartupTrace.endSection();
+
+        // Flag the Articles that haven't been shown before, so the list doesn't have to
+        // look them up while it is bound. They are marked seen when their row is shown.
+        if (news != null) {
+            ReadStateIndex seenIndex = ReadStateIndex.getSeenIndex(getContext());
+            for (News currentNews : news) {
+                currentNews.setNew(!seenIndex.contains(currentNews.getUrlHash()));
+            }
+        }
+
+        // Measure the text of the rows here, so the UI thread doesn't have to while scrolling.
+        // The precomputer is asked for now, as the width of the list changes on rotation.
+        TextPrecomputerProvider textPrecomputers = mTextPrecomputerProvider.get();
+        RowTextPrecomputer textPrecomputer = textPrecomputers == null
+                ? null : textPrecomputers.getTextPrecomputer();
+        if (textPrecomputer != null) {
+            StartupTrace.beginSection("NewsLoader.precomputeText");
+            textPrecomputer.precompute(news);
+            StartupTrace.endSection();
+        }
+
+        // Keep the fetched Articles in the archive and let it clean up old days.
+        // The archive writes on its own thread, so the Articles are delivered without waiting.
+        if (news != null && !news.isEmpty()) {
+            ArticleArchive.getInstance(getContext()).appendLater(news, getRetentionDays());
+        }
+        return news;
+    }
+
+    /**
+     * Read the user’s latest preference for the order by setting
+     */
+    private String getOrderBy() {
+        Context context = getContext();
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return sharedPrefs.getString(
+                context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_by_default)
+        );
+    }
+
+    /**
+     * Read the user’s latest preference for the maximum results
+     * and construct the sources of the News Articles with it & the given order.
+     */
+    private List<NewsSource> buildSources(String orderBy) {
+        Context context = getContext();
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String maxNewsFeed = sharedPrefs.getString(
+                context.getString(R.string.settings_max_news_results_key),
+                context.getString(R.string.settings_max_news_results_default));
+
+        // A value with a '/' is a tag of the sport section, e.g. "sport/tennis"
+        int tagSeparator = mSectionValue.indexOf('/');
+        String section = tagSeparator < 0 ? mSectionValue : mSectionValue.substring(0, tagSeparator);
+        String tag = tagSeparator < 0 ? null : mSectionValue;
+
+        // Constructs the URL, with the search query of the user if there is one
+        GuardianQuery query = new GuardianQuery.Builder()
+                .query(mSearchQuery)
+                .section(section)
+                .tag(tag)
+                .pageSize(maxNewsFeed)
+                .orderBy(orderBy)
+                .apiKey(GuardianQuery.DEFAULT_API_KEY)
+                .build();
+
+        List<NewsSource> sources = new ArrayList<>();
+        sources.add(new GuardianNewsSource(query));
+        if (mIncludeFeeds) {
+            for (String feedUrl : context.getResources().getStringArray(R.array.rss_feed_urls)) {
+                sources.add(new RssNewsSource(feedUrl));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Read the number of days the archived Articles are kept from the preferences
+     */
+    private int getRetentionDays() {
+        Context context = getContext();
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String defaultDays = context.getString(R.string.settings_archive_retention_default);
+        String days = sharedPrefs.getString(
+                context.getString(R.string.settings_archive_retention_key), defaultDays);
+        try {
+            return Math.max(1, Integer.parseInt(days));
+        } catch (NumberFormatException e) {
+            return Integer.parseInt(defaultDays);
+        }
     }
 }
@@ -0,0 +1,242 @@
+package com.example.android.readnewsapp;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.v4.view.GravityCompat;
+import android.support.v4.view.ViewCompat;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+
+/**
+ * The PrecomputedTextView draws a text {@link Layout} that has been built ahead of time,
+ * e.g. by the {@link RowTextPrecomputer} on the loader's background thread, so binding
+ * and drawing a list row doesn't measure any text on the UI thread.
+ * If it is given plain text, or a Layout of a different width, it builds the Layout
+ * itself while it is measured, like a TextView.
+ * Lines after maxLines are cut off, like a TextView without ellipsize.
+ */
+
+public class PrecomputedTextView extends View {
+
+    /**
+     * Text size (in sp) & color if neither the text appearance nor the view sets them
+     */
+    private static final float DEFAULT_TEXT_SIZE = 14f;
+
+    /**
+     * The attributes of a text appearance style read by this view, in ascending order
+     */
+    private static final int[] TEXT_APPEARANCE_ATTRS = {
+            android.R.attr.textSize, android.R.attr.textStyle, android.R.attr.textColor};
+
+    private final TextPaint mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Layout.Alignment mAlignment;
+    private final int mVerticalGravity;
+    private final int mMaxLines;
+
+    /**
+     * The text & its Layout, which is null until it is given or built
+     */
+    private CharSequence mText = "";
+    private Layout mLayout;
+
+    public PrecomputedTextView(Context context) {
+        this(context, null);
+    }
+
+    public PrecomputedTextView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        mPaint.density = getResources().getDisplayMetrics().density;
+
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE,
+                getResources().getDisplayMetrics());
+        int textStyle = Typeface.NORMAL;
+        ColorStateList textColor = null;
+
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PrecomputedTextView);
+        try {
+            // The text appearance first, the attributes of the view override it
+            int appearance = a.getResourceId(R.styleable.PrecomputedTextView_android_textAppearance, 0);
+            if (appearance != 0) {
+                TypedArray appearanceArray =
+                        context.obtainStyledAttributes(appearance, TEXT_APPEARANCE_ATTRS);
+                try {
+                    textSize = appearanceArray.getDimension(0, textSize);
+                    textStyle = appearanceArray.getInt(1, textStyle);
+                    ColorStateList appearanceColor = appearanceArray.getColorStateList(2);
+                    if (appearanceColor != null) {
+                        textColor = appearanceColor;
+                    }
+                } finally {
+                    appearanceArray.recycle();
+                }
+            }
+
+            textSize = a.getDimension(R.styleable.PrecomputedTextView_android_textSize, textSize);
+            textStyle = a.getInt(R.styleable.PrecomputedTextView_android_textStyle, textStyle);
+            ColorStateList viewColor = a.getColorStateList(R.styleable.PrecomputedTextView_android_textColor);
+            if (viewColor != null) {
+                textColor = viewColor;
+            }
+
+            int gravity = a.getInt(R.styleable.PrecomputedTextView_android_gravity,
+                    Gravity.TOP | GravityCompat.START);
+            mAlignment = toAlignment(gravity);
+            mVerticalGravity = gravity & Gravity.VERTICAL_GRAVITY_MASK;
+            mMaxLines = a.getInt(R.styleable.PrecomputedTextView_android_maxLines, Integer.MAX_VALUE);
+        } finally {
+            a.recycle();
+        }
+
+        mPaint.setTextSize(textSize);
+        mPaint.setColor(textColor != null ? textColor.getDefaultColor() : Color.BLACK);
+        applyTextStyle(mPaint, textStyle);
+    }
+
+    /**
+     * Set the typeface of the paint for the given style, faking what the font can't do
+     */
+    private static void applyTextStyle(TextPaint paint, int style) {
+        Typeface typeface = Typeface.defaultFromStyle(style);
+        paint.setTypeface(typeface);
+        int missingStyle = style & ~typeface.getStyle();
+        paint.setFakeBoldText((missingStyle & Typeface.BOLD) != 0);
+        paint.setTextSkewX((missingStyle & Typeface.ITALIC) != 0 ? -0.25f : 0);
+    }
+
+    /**
+     * Return the alignment of the text for the horizontal gravity, START & END taken as LTR
+     * (GravityCompat, as Gravity.getAbsoluteGravity is only there from API 17)
+     */
+    private static Layout.Alignment toAlignment(int gravity) {
+        switch (GravityCompat.getAbsoluteGravity(gravity, ViewCompat.LAYOUT_DIRECTION_LTR)
+                & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.CENTER_HORIZONTAL:
+                return Layout.Alignment.ALIGN_CENTER;
+            case Gravity.RIGHT:
+                return Layout.Alignment.ALIGN_OPPOSITE;
+            default:
+                return Layout.Alignment.ALIGN_NORMAL;
+        }
+    }
+
+    /**
+     * Build the Layout of the given text the way this view does. Can be called on any thread.
+     */
+    public static Layout buildLayout(CharSequence text, TextPaint paint, int width,
+                                     Layout.Alignment alignment) {
+        return new StaticLayout(text, paint, width, alignment, 1f, 0f, true);
+    }
+
+    /**
+     * Return the paint of the text. Copy it before using it on another thread.
+     */
+    public TextPaint getPaint() {
+        return mPaint;
+    }
+
+    public Layout.Alignment getAlignment() {
+        return mAlignment;
+    }
+
+    /**
+     * Return the width available to the text when the view has the given width
+     */
+    public int getTextWidth(int viewWidth) {
+        return Math.max(1, viewWidth - getPaddingLeft() - getPaddingRight());
+    }
+
+    /**
+     * Set the text, its Layout is built when the view is measured
+     */
+    public void setText(CharSequence text) {
+        mText = text == null ? "" : text;
+        mLayout = null;
+        onTextChanged();
+    }
+
+    /**
+     * Set a Layout built ahead of time, its text becomes the text of the view
+     */
+    public void setLayout(Layout layout) {
+        mText = layout.getText();
+        mLayout = layout;
+        onTextChanged();
+    }
+
+    public CharSequence getText() {
+        return mText;
+    }
+
+    private void onTextChanged() {
+        setContentDescription(mText);
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Return the number of lines that are drawn
+     */
+    private int getVisibleLineCount() {
+        return Math.min(mMaxLines, mLayout.getLineCount());
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        if (widthMode == MeasureSpec.UNSPECIFIED) {
+            width = (int) Math.ceil(Layout.getDesiredWidth(mText, mPaint))
+                    + getPaddingLeft() + getPaddingRight();
+        }
+
+        // Only a Layout of a different width (or none) is built here, on the UI thread
+        int textWidth = getTextWidth(width);
+        if (mLayout == null || mLayout.getWidth() != textWidth) {
+            mLayout = buildLayout(mText, mPaint, textWidth, mAlignment);
+        }
+
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        int height = MeasureSpec.getSize(heightMeasureSpec);
+        if (heightMode != MeasureSpec.EXACTLY) {
+            int desiredHeight = mLayout.getLineTop(getVisibleLineCount())
+                    + getPaddingTop() + getPaddingBottom();
+            height = heightMode == MeasureSpec.AT_MOST
+                    ? Math.min(height, desiredHeight) : desiredHeight;
+        }
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mLayout == null) {
+            return;
+        }
+        int textHeight = mLayout.getLineTop(getVisibleLineCount());
+        int availableHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+        int top = getPaddingTop();
+        if (mVerticalGravity == Gravity.CENTER_VERTICAL) {
+            top += Math.max(0, (availableHeight - textHeight) / 2);
+        } else if (mVerticalGravity == Gravity.BOTTOM) {
+            top += Math.max(0, availableHeight - textHeight);
+        }
+
+        canvas.save();
+        canvas.clipRect(getPaddingLeft(), getPaddingTop(),
+                getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+        canvas.translate(getPaddingLeft(), top);
+        canvas.clipRect(0, 0, mLayout.getWidth(), textHeight);
+        mLayout.draw(canvas);
+        canvas.restore();
+    }
+}
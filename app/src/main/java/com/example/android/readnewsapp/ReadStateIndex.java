@@ -0,0 +1,175 @@
+package com.example.android.readnewsapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.android.readnewsapp.core.LongHashSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The ReadStateIndex remembers a set of News Articles by the 64-bit hash of their url.
+ * The hashes are kept in memory in a {@link LongHashSet} and appended to a file,
+ * 8 bytes per Article, so the state survives restarts of the app.
+ * The app keeps two indexes: the Articles the user has seen in the list
+ * and the Articles the user has opened (read).
+ */
+
+public class ReadStateIndex {
+
+    /**
+     * Tag for log messages
+     */
+    private static final String LOG_TAG = ReadStateIndex.class.getSimpleName();
+
+    /**
+     * Names of the files that hold the indexes
+     */
+    private static final String READ_INDEX_FILE = "read_news.idx";
+    private static final String SEEN_INDEX_FILE = "seen_news.idx";
+
+    /**
+     * All the file writes run one after the other on this background thread
+     */
+    private static final Executor WRITE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private static ReadStateIndex sReadIndex;
+    private static ReadStateIndex sSeenIndex;
+
+    private final File mFile;
+    private final LongHashSet mHashes = new LongHashSet();
+    private boolean mLoaded;
+
+    /**
+     * Constructs a new {@link ReadStateIndex} backed by the given file.
+     * The app uses the shared indexes of {@link #getReadIndex} & {@link #getSeenIndex}.
+     */
+    ReadStateIndex(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Return the index of the News Articles the user has opened
+     */
+    public static synchronized ReadStateIndex getReadIndex(Context context) {
+        if (sReadIndex == null) {
+            sReadIndex = new ReadStateIndex(new File(context.getFilesDir(), READ_INDEX_FILE));
+        }
+        return sReadIndex;
+    }
+
+    /**
+     * Return the index of the News Articles that have already been shown in the list
+     */
+    public static synchronized ReadStateIndex getSeenIndex(Context context) {
+        if (sSeenIndex == null) {
+            sSeenIndex = new ReadStateIndex(new File(context.getFilesDir(), SEEN_INDEX_FILE));
+        }
+        return sSeenIndex;
+    }
+
+    /**
+     * Read the hashes from the file, if this hasn't been done yet.
+     * This is a disk read, so call it on a background thread.
+     */
+    public synchronized void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mFile.exists()) {
+            return;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            long count = mFile.length() / 8;
+            for (long i = 0; i < count; i++) {
+                mHashes.add(in.readLong());
+            }
+        } catch (EOFException e) {
+            Log.w(LOG_TAG, "Truncated index file " + mFile.getName(), e);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading the index file " + mFile.getName(), e);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Return true if the Article with the given url hash is in the index
+     */
+    public synchronized boolean contains(long urlHash) {
+        return mHashes.contains(urlHash);
+    }
+
+    /**
+     * Add the Article with the given url hash to the index
+     */
+    public void add(long urlHash) {
+        addAll(new long[]{urlHash});
+    }
+
+    /**
+     * Add all the given url hashes to the index. The new ones are appended
+     * to the file on a background thread.
+     */
+    public void addAll(long[] urlHashes) {
+        final long[] added = new long[urlHashes.length];
+        int count = 0;
+        synchronized (this) {
+            for (long urlHash : urlHashes) {
+                if (mHashes.add(urlHash)) {
+                    added[count++] = urlHash;
+                }
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        final int addedCount = count;
+        WRITE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                append(added, addedCount);
+            }
+        });
+    }
+
+    private void append(long[] urlHashes, int count) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mFile, true)));
+            for (int i = 0; i < count; i++) {
+                out.writeLong(urlHashes[i]);
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem writing the index file " + mFile.getName(), e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Problem closing the index file", e);
+            }
+        }
+    }
+}
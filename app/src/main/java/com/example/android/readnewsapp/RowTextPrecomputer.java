@@ -0,0 +1,183 @@
+package com.example.android.readnewsapp;
+
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.TextPaint;
+
+import com.example.android.readnewsapp.core.News;
+
+import java.util.List;
+
+/**
+ * The RowTextPrecomputer builds the text Layouts of the title and the description of the
+ * News Articles on the loader's background thread, for the known width of a list row.
+ * The Layouts are kept in a cache of the {@link CacheManager}, by url hash & row width,
+ * and the {@link NewsAdapter} hands them to the {@link PrecomputedTextView}s of the row,
+ * so binding a row on the UI thread doesn't measure any text.
+ */
+
+public class RowTextPrecomputer {
+
+    /**
+     * Approximate size (in bytes) of a Layout without its lines & of every line of it
+     */
+    private static final int LAYOUT_OVERHEAD = 96;
+    private static final int LINE_SIZE = 32;
+
+    /**
+     * Copies of the paints of the title & description views in list_item.xml,
+     * the width available to their text & their alignment
+     */
+    private final TextPaint mTitlePaint;
+    private final int mTitleWidth;
+    private final Layout.Alignment mTitleAlignment;
+    private final TextPaint mDescriptionPaint;
+    private final int mDescriptionWidth;
+    private final Layout.Alignment mDescriptionAlignment;
+
+    /**
+     * Width (in pixels) of a list row
+     */
+    private final int mRowWidth;
+
+    private final CacheManager.BudgetedCache<String, Spanned> mSpannedTextCache;
+    private final CacheManager.BudgetedCache<RowKey, RowLayouts> mLayoutCache;
+
+    /**
+     * Constructs a new {@link RowTextPrecomputer}. Call it on the UI thread.
+     *
+     * @param titleView       is the title view of an inflated list item
+     * @param descriptionView is the description view of an inflated list item
+     * @param rowWidth        is the width (in pixels) of a list row
+     */
+    public RowTextPrecomputer(PrecomputedTextView titleView, PrecomputedTextView descriptionView,
+                              int rowWidth) {
+        mTitlePaint = new TextPaint(titleView.getPaint());
+        mTitleWidth = titleView.getTextWidth(rowWidth);
+        mTitleAlignment = titleView.getAlignment();
+        mDescriptionPaint = new TextPaint(descriptionView.getPaint());
+        mDescriptionWidth = descriptionView.getTextWidth(rowWidth);
+        mDescriptionAlignment = descriptionView.getAlignment();
+        mRowWidth = rowWidth;
+        mSpannedTextCache = NewsAdapter.getSpannedTextCache();
+        mLayoutCache = getLayoutCache();
+    }
+
+    /**
+     * Return the width (in pixels) of the rows the Layouts are built for
+     */
+    public int getRowWidth() {
+        return mRowWidth;
+    }
+
+    /**
+     * Return the text layout cache, registering it on the {@link CacheManager} the first time.
+     */
+    private static CacheManager.BudgetedCache<RowKey, RowLayouts> getLayoutCache() {
+        return CacheManager.getInstance().register(
+                CacheManager.TEXT_LAYOUT_CACHE, CacheManager.TEXT_LAYOUT_CACHE_SHARE,
+                new CacheManager.Sizer<RowKey, RowLayouts>() {
+                    @Override
+                    public int sizeOf(RowKey key, RowLayouts layouts) {
+                        // The texts themselves are counted by the News & the spanned text cache
+                        return 2 * LAYOUT_OVERHEAD + LINE_SIZE
+                                * (layouts.mTitle.getLineCount() + layouts.mDescription.getLineCount());
+                    }
+                });
+    }
+
+    /**
+     * Build the Layouts of the title & description of every News Article
+     * that doesn't have them in the cache yet.
+     * This is on a background thread.
+     */
+    public synchronized void precompute(List<News> news) {
+        if (news == null) {
+            return;
+        }
+        for (News currentNews : news) {
+            RowKey key = new RowKey(currentNews.getUrlHash(), mRowWidth);
+            RowLayouts layouts = mLayoutCache.get(key);
+            if (layouts != null && layouts.matches(currentNews)) {
+                continue;
+            }
+
+            Layout title = PrecomputedTextView.buildLayout(currentNews.getTitle(),
+                    mTitlePaint, mTitleWidth, mTitleAlignment);
+            Spanned descriptionText = NewsAdapter.getSpannedText(mSpannedTextCache,
+                    currentNews.getDescription());
+            Layout description = PrecomputedTextView.buildLayout(descriptionText,
+                    mDescriptionPaint, mDescriptionWidth, mDescriptionAlignment);
+            mLayoutCache.put(key, new RowLayouts(currentNews, title, description));
+        }
+    }
+
+    /**
+     * Return the Layouts of the given News Article, or null if they aren't in the cache
+     * (not precomputed yet, evicted, or built for an older version of the Article)
+     */
+    public RowLayouts getLayouts(News news) {
+        RowLayouts layouts = mLayoutCache.get(new RowKey(news.getUrlHash(), mRowWidth));
+        return layouts != null && layouts.matches(news) ? layouts : null;
+    }
+
+    /**
+     * The Layouts of the title & description of a single row
+     */
+    public static final class RowLayouts {
+        private final String mTitleSource;
+        private final String mDescriptionSource;
+        private final Layout mTitle;
+        private final Layout mDescription;
+
+        private RowLayouts(News news, Layout title, Layout description) {
+            mTitleSource = news.getTitle();
+            mDescriptionSource = news.getDescription();
+            mTitle = title;
+            mDescription = description;
+        }
+
+        /**
+         * Return true if the Layouts were built for the current title & description
+         */
+        private boolean matches(News news) {
+            return mTitleSource.equals(news.getTitle())
+                    && mDescriptionSource.equals(news.getDescription());
+        }
+
+        public Layout getTitle() {
+            return mTitle;
+        }
+
+        public Layout getDescription() {
+            return mDescription;
+        }
+    }
+
+    /**
+     * Cache key: the url hash of the News Article & the width of the row
+     */
+    private static final class RowKey {
+        private final long mUrlHash;
+        private final int mRowWidth;
+
+        private RowKey(long urlHash, int rowWidth) {
+            mUrlHash = urlHash;
+            mRowWidth = rowWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RowKey)) {
+                return false;
+            }
+            RowKey other = (RowKey) o;
+            return mUrlHash == other.mUrlHash && mRowWidth == other.mRowWidth;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (mUrlHash ^ (mUrlHash >>> 32)) + mRowWidth;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.android.readnewsapp;
+
+import android.util.SparseArray;
+
+import com.example.android.readnewsapp.core.News;
+
+import java.util.List;
+
+/**
+ * The SectionStateCache keeps in memory the state of the section tabs: the loaded
+ * News Articles, the scroll position and the load state of every tab. Only the tabs
+ * near the selected one are kept, the state of the far away tabs is evicted.
+ */
+
+public class SectionStateCache {
+
+    /**
+     * Load states of a section tab
+     */
+    public static final int STATE_LOADING = 0;
+    public static final int STATE_LOADED = 1;
+
+    /**
+     * Maximum distance (in tabs) from the selected tab for a tab to keep its state
+     */
+    private final int mKeepDistance;
+
+    /**
+     * State of the tabs by tab position
+     */
+    private final SparseArray<SectionState> mStates = new SparseArray<>();
+
+    /**
+     * Constructs a new {@link SectionStateCache}.
+     *
+     * @param keepDistance is the maximum distance from the selected tab for a tab to keep its state
+     */
+    public SectionStateCache(int keepDistance) {
+        mKeepDistance = keepDistance;
+    }
+
+    /**
+     * Return the state of the given tab, or null if it has no state
+     */
+    public SectionState get(int position) {
+        return mStates.get(position);
+    }
+
+    /**
+     * Return the state of the given tab, creating a new (loading) one if it has no state
+     */
+    public SectionState getOrCreate(int position) {
+        SectionState state = mStates.get(position);
+        if (state == null) {
+            state = new SectionState();
+            mStates.put(position, state);
+        }
+        return state;
+    }
+
+    /**
+     * Remove the state of the given tab, so it is loaded again the next time it is shown
+     */
+    public void remove(int position) {
+        mStates.remove(position);
+    }
+
+    /**
+     * Remove the state of the tabs far away from the selected tab.
+     *
+     * @return the positions of the tabs whose state was removed
+     */
+    public int[] evictFarFrom(int selectedPosition) {
+        int[] evicted = new int[mStates.size()];
+        int count = 0;
+        for (int i = 0; i < mStates.size(); i++) {
+            int position = mStates.keyAt(i);
+            if (Math.abs(position - selectedPosition) > mKeepDistance) {
+                evicted[count++] = position;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            mStates.remove(evicted[i]);
+        }
+        int[] result = new int[count];
+        System.arraycopy(evicted, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Remove the state of all the tabs.
+     *
+     * @return the positions of the tabs whose state was removed
+     */
+    public int[] evictAll() {
+        int[] evicted = new int[mStates.size()];
+        for (int i = 0; i < evicted.length; i++) {
+            evicted[i] = mStates.keyAt(i);
+        }
+        mStates.clear();
+        return evicted;
+    }
+
+    /**
+     * The state of a single section tab
+     */
+    public static class SectionState {
+        /**
+         * Load state, News Articles & whether they have been shown to the user
+         */
+        int loadState = STATE_LOADING;
+        List<News> news;
+        boolean shown;
+
+        /**
+         * Scroll position: the first visible item and its offset from the top of the list
+         */
+        int firstVisiblePosition;
+        int topOffset;
+    }
+}
@@ -34,6 +34,9 @@ public class SettingsActivity extends AppCompatActivity {
 
             Preference orderBy = findPreference(getString(R.string.settings_order_by_key));
             bindPreferenceSummaryToValue(orderBy);
+
+            Preference archiveRetention = findPreference(getString(R.string.settings_archive_retention_key));
+            bindPreferenceSummaryToValue(archiveRetention);
         }
 
         // On preference Change method boolean to check if changes are made
@@ -0,0 +1,118 @@
+package com.example.android.readnewsapp;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v4.os.TraceCompat;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * The StartupTrace marks the steps of the app startup as named trace sections
+ * (visible in systrace) and measures the two startup milestones of {@link MainActivity}:
+ * - time to initial display: from onCreate until the first frame is drawn,
+ * - time to first article: from onCreate until the first News Articles are shown.
+ */
+
+public final class StartupTrace {
+
+    /**
+     * Tag for log messages
+     */
+    private static final String LOG_TAG = StartupTrace.class.getSimpleName();
+
+    private static final long NOT_REACHED = -1;
+
+    /**
+     * Uptime (in milliseconds) when the activity was created & the durations of the milestones
+     */
+    private static long sCreatedAt = NOT_REACHED;
+    private static long sTimeToInitialDisplay = NOT_REACHED;
+    private static long sTimeToFirstArticle = NOT_REACHED;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link StartupTrace} object.
+     */
+    private StartupTrace() {
+    }
+
+    /**
+     * Begin a named trace section on the current thread
+     */
+    public static void beginSection(String sectionName) {
+        TraceCompat.beginSection(sectionName);
+    }
+
+    /**
+     * End the last trace section begun on the current thread
+     */
+    public static void endSection() {
+        TraceCompat.endSection();
+    }
+
+    /**
+     * Start measuring the startup of the activity. Call it first thing in onCreate,
+     * before super.onCreate().
+     */
+    public static synchronized void markActivityCreated() {
+        sCreatedAt = SystemClock.uptimeMillis();
+        sTimeToInitialDisplay = NOT_REACHED;
+        sTimeToFirstArticle = NOT_REACHED;
+    }
+
+    /**
+     * Take the time to initial display when the first frame of the given activity is drawn.
+     * Call it after setContentView(), so the window decor is created the usual way.
+     */
+    public static void observeInitialDisplay(Activity activity) {
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        markInitialDisplay();
+                        return true;
+                    }
+                });
+    }
+
+    private static synchronized void markInitialDisplay() {
+        if (sCreatedAt != NOT_REACHED && sTimeToInitialDisplay == NOT_REACHED) {
+            sTimeToInitialDisplay = SystemClock.uptimeMillis() - sCreatedAt;
+            Log.i(LOG_TAG, "Time to initial display: " + sTimeToInitialDisplay + " ms");
+        }
+    }
+
+    /**
+     * Mark that the first News Articles are shown. Only the first call after
+     * {@link #markActivityCreated()} counts.
+     */
+    public static synchronized void markFirstArticle(Activity activity) {
+        if (sCreatedAt == NOT_REACHED || sTimeToFirstArticle != NOT_REACHED) {
+            return;
+        }
+        sTimeToFirstArticle = SystemClock.uptimeMillis() - sCreatedAt;
+        Log.i(LOG_TAG, "Time to first article: " + sTimeToFirstArticle + " ms");
+
+        // Let the system know too, it reports the "Fully drawn" time in the logcat
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            activity.reportFullyDrawn();
+        }
+    }
+
+    /**
+     * Return the time to initial display in milliseconds, or -1 if the first frame isn't drawn yet
+     */
+    public static synchronized long getTimeToInitialDisplay() {
+        return sTimeToInitialDisplay;
+    }
+
+    /**
+     * Return the time to first article in milliseconds, or -1 if no article is shown yet
+     */
+    public static synchronized long getTimeToFirstArticle() {
+        return sTimeToFirstArticle;
+    }
+}
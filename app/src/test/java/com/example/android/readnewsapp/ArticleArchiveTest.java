@@ -0,0 +1,157 @@
+package com.example.android.readnewsapp;
+
+import com.example.android.readnewsapp.core.News;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test of the {@link ArticleArchive} against a temporary directory, which runs on a JVM.
+ */
+public class ArticleArchiveTest {
+
+    private File mDir;
+    private ArticleArchive mArchive;
+
+    @Before
+    public void createArchive() throws IOException {
+        mDir = File.createTempFile("archive", "");
+        assertTrue(mDir.delete());
+        mArchive = new ArticleArchive(mDir);
+    }
+
+    @After
+    public void deleteArchive() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void append_skipsArchivedArticles() {
+        mArchive.append(Arrays.asList(news(0, "10:00", "a"), news(0, "11:00", "b")));
+        mArchive.append(Arrays.asList(news(0, "10:00", "a"), news(0, "12:00", "c")));
+
+        assertUrls(mArchive.scan(ArticleArchive.dayKey(0), ArticleArchive.dayKey(0)), "c", "b", "a");
+
+        // The url index on disk is used by a new archive too
+        ArticleArchive reopened = new ArticleArchive(mDir);
+        reopened.append(Arrays.asList(news(0, "11:00", "b")));
+        assertEquals(3 * 8, new File(mDir, ArticleArchive.dayKey(0) + ".idx").length());
+        assertUrls(reopened.scan(ArticleArchive.dayKey(0), ArticleArchive.dayKey(0)), "c", "b", "a");
+    }
+
+    @Test
+    public void scan_coversInclusiveRangeNewestFirst() {
+        mArchive.append(Arrays.asList(news(0, "09:00", "today"), news(1, "09:00", "yesterday"),
+                news(2, "09:00", "two"), news(3, "09:00", "three")));
+
+        assertUrls(mArchive.scan(ArticleArchive.dayKey(2), ArticleArchive.dayKey(1)),
+                "yesterday", "two");
+        assertUrls(mArchive.scan(ArticleArchive.dayKey(3), ArticleArchive.dayKey(0)),
+                "today", "yesterday", "two", "three");
+        assertUrls(mArchive.scan(ArticleArchive.dayKey(10), ArticleArchive.dayKey(5)));
+    }
+
+    @Test
+    public void retention_keepsTheGivenNumberOfDays() {
+        for (int daysAgo = 0; daysAgo < 6; daysAgo++) {
+            mArchive.append(Arrays.asList(news(daysAgo, "09:00", "day" + daysAgo)));
+        }
+
+        mArchive.applyRetention(3);
+
+        assertUrls(mArchive.scan(ArticleArchive.dayKey(30), ArticleArchive.dayKey(0)),
+                "day0", "day1", "day2");
+        assertFalse(new File(mDir, ArticleArchive.dayKey(3) + ".seg").exists());
+        assertFalse(new File(mDir, ArticleArchive.dayKey(3) + ".idx").exists());
+    }
+
+    @Test
+    public void compact_mergesPastDays() {
+        mArchive.append(Arrays.asList(news(1, "08:00", "a"), news(1, "10:00", "b")));
+        mArchive.append(Arrays.asList(news(1, "09:00", "c"), news(0, "09:00", "today")));
+
+        mArchive.compact();
+
+        String yesterday = ArticleArchive.dayKey(1);
+        assertFalse(new File(mDir, yesterday + ".seg").exists());
+        assertTrue(new File(mDir, yesterday + ".cseg").exists());
+        // Today's segment is still growing, it isn't compacted
+        assertTrue(new File(mDir, ArticleArchive.dayKey(0) + ".seg").exists());
+        assertUrls(mArchive.scan(yesterday, yesterday), "b", "c", "a");
+
+        // The rewritten index still stops duplicates, new Articles go to a new segment
+        mArchive.append(Arrays.asList(news(1, "10:00", "b"), news(1, "11:00", "d")));
+        assertUrls(mArchive.scan(yesterday, yesterday), "d", "b", "c", "a");
+        mArchive.compact();
+        assertUrls(new ArticleArchive(mDir).scan(yesterday, yesterday), "d", "b", "c", "a");
+    }
+
+    @Test
+    public void append_cutsFieldsLongerThanWriteUtf() {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 70000) {
+            description.append("\u00e9 long description ");
+        }
+        News longNews = new News("long", "Sport", description.toString(),
+                ArticleArchive.dayKey(0) + " 10:00", "https://example.com/long");
+        mArchive.append(Arrays.asList(news(0, "09:00", "before"), longNews, news(0, "11:00", "after")));
+
+        List<News> news = mArchive.scan(ArticleArchive.dayKey(0), ArticleArchive.dayKey(0));
+        assertUrls(news, "after", "long", "before");
+        String archived = news.get(1).getDescription();
+        assertTrue(description.toString().startsWith(archived));
+        assertTrue(archived.length() > 20000);
+    }
+
+    @Test
+    public void scan_stopsAtTruncatedRecord() throws IOException {
+        mArchive.append(Arrays.asList(news(0, "09:00", "a")));
+        FileOutputStream out = new FileOutputStream(
+                new File(mDir, ArticleArchive.dayKey(0) + ".seg"), true);
+        // The length of a record that never got written completely
+        out.write(new byte[]{0, 0, 0, 40, 0, 3});
+        out.close();
+
+        assertUrls(new ArticleArchive(mDir).scan(ArticleArchive.dayKey(0), ArticleArchive.dayKey(0)),
+                "a");
+    }
+
+    @Test
+    public void truncateToUtfLength_keepsSurrogatePairs() {
+        assertEquals("ab", ArticleArchive.truncateToUtfLength("abc", 2));
+        // An e acute takes 2 bytes, a surrogate pair 3 + 3
+        assertEquals("a", ArticleArchive.truncateToUtfLength("a\u00e9", 2));
+        assertEquals("a", ArticleArchive.truncateToUtfLength("a\ud83d\ude00", 4));
+        assertEquals("a\ud83d\ude00", ArticleArchive.truncateToUtfLength("a\ud83d\ude00", 7));
+    }
+
+    private static News news(int daysAgo, String time, String name) {
+        return new News("Title " + name, "Sport", "<p>" + name + "</p>",
+                ArticleArchive.dayKey(daysAgo) + " " + time, "https://example.com/" + name);
+    }
+
+    private static void assertUrls(List<News> news, String... names) {
+        String[] urls = new String[news.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = news.get(i).getUrl().substring("https://example.com/".length());
+        }
+        assertEquals(Arrays.asList(names), Arrays.asList(urls));
+    }
+}
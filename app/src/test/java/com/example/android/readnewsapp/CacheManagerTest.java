@@ -0,0 +1,136 @@
+package com.example.android.readnewsapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Local unit test of the budget split & the staged eviction of the {@link CacheManager},
+ * which runs on a JVM.
+ */
+public class CacheManagerTest {
+
+    private static final int TOTAL_BUDGET = 1000; // bytes
+    private static final int ENTRY_SIZE = 10; // bytes
+
+    /**
+     * Counts every entry as ENTRY_SIZE bytes
+     */
+    private static final CacheManager.Sizer<Integer, String> FIXED_SIZE =
+            new CacheManager.Sizer<Integer, String>() {
+                @Override
+                public int sizeOf(Integer key, String value) {
+                    return ENTRY_SIZE;
+                }
+            };
+
+    private CacheManager mCacheManager;
+
+    @Before
+    public void createCacheManager() {
+        mCacheManager = new CacheManager(TOTAL_BUDGET);
+    }
+
+    @Test
+    public void register_givesTheShareOfTheBudget() {
+        CacheManager.BudgetedCache<Integer, String> cache =
+                mCacheManager.register("forty", 40, FIXED_SIZE);
+
+        assertEquals("forty", cache.getName());
+        assertEquals(400, cache.maxSize());
+    }
+
+    @Test
+    public void register_returnsTheExistingCache() {
+        CacheManager.BudgetedCache<Integer, String> cache =
+                mCacheManager.register("first", 60, FIXED_SIZE);
+
+        assertSame(cache, mCacheManager.register("first", 60, FIXED_SIZE));
+        // The share of the cache is assigned only once, so 40% are still left
+        assertEquals(400, mCacheManager.register("second", 40, FIXED_SIZE).maxSize());
+    }
+
+    @Test
+    public void register_rejectsSharesAboveTheBudget() {
+        mCacheManager.register("first", 70, FIXED_SIZE);
+        try {
+            mCacheManager.register("second", 31, FIXED_SIZE);
+            fail("the shares add up to 101%");
+        } catch (IllegalArgumentException expected) {
+        }
+        // The rejected share isn't assigned
+        assertEquals(300, mCacheManager.register("third", 30, FIXED_SIZE).maxSize());
+    }
+
+    @Test
+    public void register_rejectsSharesOfZeroOrLess() {
+        try {
+            mCacheManager.register("none", 0, FIXED_SIZE);
+            fail("a share of 0% is accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            mCacheManager.register("negative", -10, FIXED_SIZE);
+            fail("a share of -10% is accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void onTrimMemory_keepsLessTheMoreCriticalTheLevel() {
+        CacheManager.BudgetedCache<Integer, String> cache =
+                mCacheManager.register("all", 100, FIXED_SIZE);
+
+        // While the app runs
+        assertTrimmedTo(cache, TRIM_MEMORY_RUNNING_MODERATE, 750);
+        assertTrimmedTo(cache, TRIM_MEMORY_RUNNING_LOW, 500);
+        assertTrimmedTo(cache, TRIM_MEMORY_RUNNING_CRITICAL, 250);
+        // Once the UI is hidden & the app is cached
+        assertTrimmedTo(cache, TRIM_MEMORY_UI_HIDDEN, 500);
+        assertTrimmedTo(cache, TRIM_MEMORY_BACKGROUND, 250);
+        assertTrimmedTo(cache, TRIM_MEMORY_MODERATE, 0);
+        assertTrimmedTo(cache, TRIM_MEMORY_COMPLETE, 0);
+    }
+
+    @Test
+    public void onLowMemory_emptiesAllTheCaches() {
+        CacheManager.BudgetedCache<Integer, String> first =
+                mCacheManager.register("first", 50, FIXED_SIZE);
+        CacheManager.BudgetedCache<Integer, String> second =
+                mCacheManager.register("second", 50, FIXED_SIZE);
+        fill(first);
+        fill(second);
+
+        mCacheManager.onLowMemory();
+
+        assertEquals(0, first.size());
+        assertEquals(0, second.size());
+    }
+
+    /**
+     * Fill the cache to its budget, trim it for the given level & check what is left
+     */
+    private void assertTrimmedTo(CacheManager.BudgetedCache<Integer, String> cache, int level,
+                                 int expectedBytes) {
+        fill(cache);
+        mCacheManager.onTrimMemory(level);
+        assertEquals("level " + level, expectedBytes, cache.size());
+    }
+
+    private static void fill(CacheManager.BudgetedCache<Integer, String> cache) {
+        for (int i = 0; i < cache.maxSize() / ENTRY_SIZE; i++) {
+            cache.put(i, "entry " + i);
+        }
+        assertEquals(cache.maxSize(), cache.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.android.readnewsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test of the {@link ReadStateIndex} file format, which runs on a JVM.
+ */
+public class ReadStateIndexTest {
+
+    private static final long WRITE_TIMEOUT = 5000; // milliseconds
+
+    private File mFile;
+
+    @Before
+    public void createFile() throws IOException {
+        mFile = File.createTempFile("read_state", ".idx");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void deleteFile() {
+        mFile.delete();
+    }
+
+    @Test
+    public void missingFile_isEmpty() {
+        ReadStateIndex index = new ReadStateIndex(mFile);
+        index.ensureLoaded();
+        assertFalse(index.contains(1));
+    }
+
+    @Test
+    public void load_readsBigEndianLongs() throws IOException {
+        writeHashes(new long[]{1, -1, 0, Long.MIN_VALUE});
+
+        ReadStateIndex index = new ReadStateIndex(mFile);
+        index.ensureLoaded();
+        assertTrue(index.contains(1));
+        assertTrue(index.contains(-1));
+        assertTrue(index.contains(0));
+        assertTrue(index.contains(Long.MIN_VALUE));
+        assertFalse(index.contains(2));
+    }
+
+    @Test
+    public void load_ignoresTruncatedRecord() throws IOException {
+        writeHashes(new long[]{7, 8});
+        FileOutputStream out = new FileOutputStream(mFile, true);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+
+        ReadStateIndex index = new ReadStateIndex(mFile);
+        index.ensureLoaded();
+        assertTrue(index.contains(7));
+        assertTrue(index.contains(8));
+    }
+
+    @Test
+    public void addAll_roundTrip() throws Exception {
+        ReadStateIndex index = new ReadStateIndex(mFile);
+        index.ensureLoaded();
+        index.addAll(new long[]{10, 20, 10});
+        index.add(20);
+        index.add(30);
+        assertTrue(index.contains(10));
+
+        // Only the new hashes are appended, 8 bytes each
+        waitForFileLength(3 * 8);
+        Thread.sleep(100);
+        assertEquals(3 * 8, mFile.length());
+
+        ReadStateIndex reloaded = new ReadStateIndex(mFile);
+        reloaded.ensureLoaded();
+        assertTrue(reloaded.contains(10));
+        assertTrue(reloaded.contains(20));
+        assertTrue(reloaded.contains(30));
+        assertFalse(reloaded.contains(40));
+    }
+
+    @Test
+    public void bigIndex_containsEveryLoadedHash() throws IOException {
+        int count = 150000;
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = i * 0x9E3779B97F4A7C15L;
+        }
+        writeHashes(hashes);
+
+        ReadStateIndex index = new ReadStateIndex(mFile);
+        index.ensureLoaded();
+
+        for (long hash : hashes) {
+            assertTrue(index.contains(hash));
+        }
+        // Multiplying by the odd step is a bijection, so the multiples after count are absent
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(index.contains((2L * count + 2 * i + 1) * 0x9E3779B97F4A7C15L));
+        }
+    }
+
+    private void writeHashes(long[] hashes) throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(mFile));
+        for (long hash : hashes) {
+            out.writeLong(hash);
+        }
+        out.close();
+    }
+
+    private void waitForFileLength(long length) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WRITE_TIMEOUT;
+        while (mFile.length() < length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.android.readnewsapp.cli;
+
+import com.example.android.readnewsapp.core.GuardianNewsSource;
+import com.example.android.readnewsapp.core.GuardianQuery;
+import com.example.android.readnewsapp.core.News;
+import com.example.android.readnewsapp.core.NewsSource;
+import com.example.android.readnewsapp.core.RssNewsSource;
+import com.example.android.readnewsapp.core.SourceStats;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Headless bulk ingestion tool: crawls every combination of sections, search queries
+ * and pages of the Guardian API, plus any RSS/Atom feeds, with a bounded number of
+ * parallel requests and streams the News Articles to newline-delimited JSON, one Article
+ * per line, as they arrive. The throughput of every kind of source is printed to stderr.
+ *
+ * Usage: news-cli [--sections sport,football] [--queries q1,q2] [--pages 5]
+ *                 [--page-size 50] [--order-by newest] [--rss url1,url2]
+ *                 [--parallelism 8] [--api-key test] [--out articles.ndjson]
+ */
+
+public class NewsCrawler {
+
+    private final List<String> mSections;
+    private final List<String> mQueries;
+    private final List<String> mFeeds;
+    private final int mPages;
+    private final String mPageSize;
+    private final String mOrderBy;
+    private final int mParallelism;
+    private final String mApiKey;
+    private final Writer mOut;
+
+    /**
+     * Counters of the crawl, updated by all the worker threads
+     */
+    private final Counters mGuardianCounters = new Counters("guardian", false);
+    private final Counters mRssCounters = new Counters("rss", true);
+
+    /**
+     * The first error writing the output. It stops the crawl, the sources that haven't
+     * been fetched yet are skipped.
+     */
+    private final AtomicReference<IOException> mWriteError = new AtomicReference<>();
+
+    private NewsCrawler(List<String> sections, List<String> queries, List<String> feeds, int pages,
+                        String pageSize, String orderBy, int parallelism, String apiKey, Writer out) {
+        mSections = sections;
+        mQueries = queries;
+        mFeeds = feeds;
+        mPages = pages;
+        mPageSize = pageSize;
+        mOrderBy = orderBy;
+        mParallelism = parallelism;
+        mApiKey = apiKey;
+        mOut = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> sections = Arrays.asList(GuardianQuery.DEFAULT_SECTION);
+        List<String> queries = Arrays.asList("");
+        List<String> feeds = Collections.emptyList();
+        int pages = 1;
+        String pageSize = "50";
+        String orderBy = "newest";
+        int parallelism = 4;
+        String apiKey = GuardianQuery.DEFAULT_API_KEY;
+        String outFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--sections":
+                    sections = Arrays.asList(value.split(","));
+                    break;
+                case "--queries":
+                    queries = Arrays.asList(value.split(","));
+                    break;
+                case "--rss":
+                    feeds = Arrays.asList(value.split(","));
+                    break;
+                case "--pages":
+                    pages = Integer.parseInt(value);
+                    break;
+                case "--page-size":
+                    pageSize = value;
+                    break;
+                case "--order-by":
+                    orderBy = value;
+                    break;
+                case "--parallelism":
+                    parallelism = Integer.parseInt(value);
+                    break;
+                case "--api-key":
+                    apiKey = value;
+                    break;
+                case "--out":
+                    outFile = value;
+                    break;
+                default:
+                    usage("Unknown option " + option);
+            }
+        }
+        if (pages < 1 || parallelism < 1) {
+            usage("--pages and --parallelism must be at least 1");
+        }
+
+        OutputStream outputStream = outFile == null ? System.out : new FileOutputStream(outFile);
+        Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, Charset.forName("UTF-8")));
+        try {
+            new NewsCrawler(sections, queries, feeds, pages, pageSize, orderBy, parallelism, apiKey, out)
+                    .crawl();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: news-cli [--sections sport,football] [--queries q1,q2] [--pages 5]"
+                + " [--page-size 50] [--order-by newest] [--rss url1,url2] [--parallelism 8]"
+                + " [--api-key test] [--out articles.ndjson]");
+        System.exit(2);
+    }
+
+    /**
+     * Fetch all the pages of every section & query and all the feeds,
+     * at most {@link #mParallelism} at a time
+     */
+    private void crawl() throws InterruptedException, IOException {
+        List<NewsSource> sources = new ArrayList<>();
+        for (String section : mSections) {
+            for (String query : mQueries) {
+                for (int page = 1; page <= mPages; page++) {
+                    sources.add(new GuardianNewsSource(new GuardianQuery.Builder()
+                            .section(section.trim())
+                            .query(query.trim())
+                            .page(page)
+                            .pageSize(mPageSize)
+                            .orderBy(mOrderBy)
+                            .apiKey(mApiKey)
+                            .build()));
+                }
+            }
+        }
+        for (String feed : mFeeds) {
+            sources.add(new RssNewsSource(feed.trim()));
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(mParallelism);
+        for (final NewsSource source : sources) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (mWriteError.get() == null) {
+                        fetch(source, source instanceof RssNewsSource ? mRssCounters : mGuardianCounters);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (mWriteError.get() != null) {
+            throw mWriteError.get();
+        }
+        mOut.flush();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        mGuardianCounters.print(seconds);
+        mRssCounters.print(seconds);
+    }
+
+    /**
+     * Fetch & parse a single source and write its News Articles to the output.
+     * A source that fails is counted & skipped, an error writing the output stops the crawl.
+     */
+    private void fetch(NewsSource source, Counters counters) {
+        SourceStats stats = new SourceStats(source.getName());
+        long start = System.nanoTime();
+        counters.requests.incrementAndGet();
+        List<News> news;
+        long fetchNanos;
+        try {
+            news = source.fetch(stats);
+            // The network request & the parsing of the response together
+            fetchNanos = System.nanoTime() - start;
+        } catch (Exception e) {
+            // A source that fails in any way is counted & skipped, like in MultiSourceFetcher
+            counters.failedRequests.incrementAndGet();
+            System.err.println("Problem fetching " + source.getName() + ": " + e);
+            return;
+        } finally {
+            counters.bytes.addAndGet(stats.getBytes());
+        }
+
+        try {
+            write(source, news);
+        } catch (IOException e) {
+            mWriteError.compareAndSet(null, e);
+            return;
+        }
+        counters.articles.addAndGet(news.size());
+        counters.fetchNanos.addAndGet(fetchNanos);
+        if (stats.getParseNanos() >= 0) {
+            counters.parseNanos.addAndGet(stats.getParseNanos());
+        }
+    }
+
+    private void write(NewsSource source, List<News> news) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (News currentNews : news) {
+            JSONObject line = new JSONObject();
+            line.put("source", source.getName());
+            line.put("title", currentNews.getTitle());
+            line.put("section", currentNews.getSection());
+            line.put("description", currentNews.getDescription());
+            line.put("dateTime", currentNews.getDateTime());
+            line.put("url", currentNews.getUrl());
+            lines.append(line.toString()).append('\n');
+        }
+        // One write per source, so the lines of different threads never interleave
+        synchronized (mOut) {
+            mOut.write(lines.toString());
+        }
+    }
+
+    /**
+     * Counters of one kind of source, updated by all the worker threads
+     */
+    private static class Counters {
+        private final String name;
+        private final boolean streaming;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger failedRequests = new AtomicInteger();
+        private final AtomicInteger articles = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong fetchNanos = new AtomicLong();
+        private final AtomicLong parseNanos = new AtomicLong();
+
+        /**
+         * @param streaming is true for sources that parse the response while they download it
+         */
+        private Counters(String name, boolean streaming) {
+            this.name = name;
+            this.streaming = streaming;
+        }
+
+        /**
+         * Print the totals and the throughput over the wall clock time of the crawl
+         * and over the time spent fetching & parsing the sources of this kind,
+         * summed over all the worker threads. Sources that download the whole response
+         * before parsing it also get the throughput of the parse alone, if any of them
+         * succeeded; the others parse while they download (streaming), so their parse
+         * has no time of its own.
+         */
+        private void print(double seconds) {
+            if (requests.get() == 0) {
+                return;
+            }
+            double fetchSeconds = fetchNanos.get() / 1e9;
+            double parseSeconds = parseNanos.get() / 1e9;
+            System.err.printf("%s: %d requests (%d failed), %d articles, %d bytes in %.2f s: "
+                            + "%.1f requests/s, %.1f articles/s, %.1f KB/s, "
+                            + "%.1f articles/s of fetch+parse time, %s%n",
+                    name, requests.get(), failedRequests.get(), articles.get(), bytes.get(),
+                    seconds, requests.get() / seconds, articles.get() / seconds,
+                    bytes.get() / 1024.0 / seconds,
+                    fetchSeconds == 0 ? 0 : articles.get() / fetchSeconds,
+                    streaming ? "no separate parse time (streaming)"
+                            : parseSeconds == 0 ? "no parse time (nothing parsed)"
+                            : String.format(Locale.US, "%.1f articles/s of parse time",
+                            articles.get() / parseSeconds));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.android.readnewsapp.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} which adds the number of bytes read to the {@link SourceStats}.
+ */
+
+class CountingInputStream extends FilterInputStream {
+
+    private final SourceStats mStats;
+
+    CountingInputStream(InputStream in, SourceStats stats) {
+        super(in);
+        mStats = stats;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            mStats.addBytes(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        int read = super.read(buffer, offset, count);
+        if (read > 0) {
+            mStats.addBytes(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = super.skip(count);
+        mStats.addBytes(skipped);
+        return skipped;
+    }
+}
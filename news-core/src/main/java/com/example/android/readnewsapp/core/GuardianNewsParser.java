@@ -0,0 +1,113 @@
+package com.example.android.readnewsapp.core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The GuardianNewsParser turns a JSON response of the Guardian API into {@link News} objects.
+ */
+
+public final class GuardianNewsParser {
+
+    private static final Logger LOGGER = Logger.getLogger(GuardianNewsParser.class.getName());
+
+    /**
+     * Create a private constructor because no one should ever create a {@link GuardianNewsParser} object.
+     */
+    private GuardianNewsParser() {
+    }
+
+    /**
+     * Return a list of {@link News} objects that has been built up from
+     * parsing the given JSON response, or null if the response is empty.
+     */
+    public static List<News> parse(String newsJSON) {
+        // If the JSON string is empty or null, then return early.
+        if (newsJSON == null || newsJSON.isEmpty()) {
+            return null;
+        }
+
+        // Create an empty ArrayList that we can start adding News to
+        List<News> newsArticles = new ArrayList<>();
+
+        // Try to parse the JSON response string. If there's a problem with the way the JSON
+        // is formatted, a JSONException exception object will be thrown.
+        // Catch the exception so the caller doesn't crash, and log the error message.
+        try {
+
+            // Create a JSONObject from the JSON response string
+            JSONObject baseJsonResponse = new JSONObject(newsJSON);
+
+            // Extract the JSONObject associated with the key called "response"
+            JSONObject response = baseJsonResponse.getJSONObject("response");
+
+            // If the JSONObject has results (or News Articles)
+            // Extract the JSONArray with the key called "results"
+            if (response.has("results")) {
+                JSONArray newsArray = response.getJSONArray("results");
+                int count = newsArray.length();
+
+                // For each News in the NewsArray, create an {@link News} object
+                for (int i = 0; i < count; i++) {
+                    newsArticles.add(parseNews(newsArray.getJSONObject(i)));
+                }
+            } else {
+                LOGGER.fine("No results found");
+            }
+
+        } catch (JSONException e) {
+            LOGGER.log(Level.SEVERE, "Problem parsing the News Article JSON results", e);
+        }
+
+        // Return the list of News Articles
+        return newsArticles;
+    }
+
+    /**
+     * Create a {@link News} object from a single result of the response
+     */
+    private static News parseNews(JSONObject currentNews) throws JSONException {
+        // Extract the value from the key called webTitle
+        String title = currentNews.optString("webTitle", "");
+
+        // Extract the value from the key called sectionName
+        String section = currentNews.optString("sectionName", "");
+
+        // Check if the news article has a description
+        // and extract the value from the key called trailText if there is one
+        String description = "";
+        JSONObject fields = currentNews.optJSONObject("fields");
+        if (fields != null) {
+            description = fields.optString("trailText", "");
+        }
+
+        // Extract the Date & Time from the key called webPublicationDate
+        String dateTime = formatDateTime(currentNews.optString("webPublicationDate", ""));
+
+        // Extract the url from the key called webUrl
+        String url = currentNews.optString("webUrl", "");
+
+        // Create a new {@link News} object with the title, section, description, dateTime
+        // and url from the JSON response.
+        return new News(title, section, description, dateTime, url);
+    }
+
+    /**
+     * Turn an ISO-8601 date like "2017-07-14T16:55:09Z" into "2017-07-14 16:55"
+     */
+    public static String formatDateTime(String isoDateTime) {
+        if (isoDateTime.isEmpty()) {
+            return "";
+        }
+        // Remove T & Z from the date
+        String dateTime = isoDateTime.replace("T", " ").replace("Z", "");
+        // Remove also the last 3 characters (seconds) from the time (":09")
+        return dateTime.length() > 3 ? dateTime.substring(0, dateTime.length() - 3) : dateTime;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.android.readnewsapp.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link NewsSource} for the JSON search endpoint of the Guardian API.
+ */
+
+public class GuardianNewsSource implements NewsSource {
+
+    private final GuardianQuery mQuery;
+
+    public GuardianNewsSource(GuardianQuery query) {
+        mQuery = query;
+    }
+
+    @Override
+    public String getName() {
+        return mQuery.toUrl();
+    }
+
+    /**
+     * The whole response is downloaded first, so the time of the parse is measured on its own
+     */
+    @Override
+    public List<News> fetch(SourceStats stats) throws IOException {
+        String response = NewsHttpClient.get(mQuery.toUrl(), stats);
+        long start = System.nanoTime();
+        List<News> news = GuardianNewsParser.parse(response);
+        if (stats != null) {
+            stats.addParseNanos(System.nanoTime() - start);
+        }
+        return news == null ? new ArrayList<News>() : news;
+    }
+}
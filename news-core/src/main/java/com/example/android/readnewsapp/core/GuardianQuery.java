@@ -0,0 +1,160 @@
+package com.example.android.readnewsapp.core;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The GuardianQuery builds the request URL for the search endpoint of the Guardian API.
+ */
+
+public class GuardianQuery {
+
+    /**
+     * URL for News Articles data from the Guardian API
+     */
+    public static final String GUARDIAN_API_SEARCH = "https://content.guardianapis.com/search?";
+    public static final String DEFAULT_API_KEY = "test";
+    public static final String DEFAULT_SECTION = "sport";
+
+    /**
+     * Query parameters in the order they are appended to the URL
+     */
+    private final Map<String, String> mParameters;
+
+    private GuardianQuery(Map<String, String> parameters) {
+        mParameters = parameters;
+    }
+
+    /**
+     * Return the query parameter with the given name, or null
+     */
+    public String getParameter(String name) {
+        return mParameters.get(name);
+    }
+
+    /**
+     * Return the full request URL
+     */
+    public String toUrl() {
+        StringBuilder url = new StringBuilder(GUARDIAN_API_SEARCH);
+        boolean first = true;
+        for (Map.Entry<String, String> parameter : mParameters.entrySet()) {
+            if (!first) {
+                url.append('&');
+            }
+            first = false;
+            url.append(encode(parameter.getKey())).append('=').append(encode(parameter.getValue()));
+        }
+        return url.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toUrl();
+    }
+
+    private static String encode(String value) {
+        try {
+            // URLEncoder encodes spaces as '+', the Guardian API expects "%20"
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            // Every Java platform supports UTF-8
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Builds a {@link GuardianQuery}. Only the parameters that are set are added to the URL,
+     * apart from the format, the fields and the api key which always are.
+     */
+    public static class Builder {
+        private String mQuery;
+        private String mSection = DEFAULT_SECTION;
+        private String mTag;
+        private String mPageSize;
+        private String mPage;
+        private String mOrderBy;
+        private String mApiKey = DEFAULT_API_KEY;
+
+        /**
+         * Set the search terms (q parameter)
+         */
+        public Builder query(String query) {
+            mQuery = query;
+            return this;
+        }
+
+        /**
+         * Set the section of the News Articles, e.g. "sport"
+         */
+        public Builder section(String section) {
+            mSection = section;
+            return this;
+        }
+
+        /**
+         * Set the tag of the News Articles, e.g. "sport/tennis"
+         */
+        public Builder tag(String tag) {
+            mTag = tag;
+            return this;
+        }
+
+        /**
+         * Set the number of News Articles per page
+         */
+        public Builder pageSize(String pageSize) {
+            mPageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Set the page of the results (starts from 1)
+         */
+        public Builder page(int page) {
+            mPage = String.valueOf(page);
+            return this;
+        }
+
+        /**
+         * Set the order of the results, "newest" or "relevance"
+         */
+        public Builder orderBy(String orderBy) {
+            mOrderBy = orderBy;
+            return this;
+        }
+
+        public Builder apiKey(String apiKey) {
+            mApiKey = apiKey;
+            return this;
+        }
+
+        public GuardianQuery build() {
+            Map<String, String> parameters = new LinkedHashMap<>();
+            if (mQuery != null && !mQuery.isEmpty()) {
+                parameters.put("q", mQuery);
+            }
+            parameters.put("format", "json");
+            if (mSection != null && !mSection.isEmpty()) {
+                parameters.put("section", mSection);
+            }
+            if (mTag != null && !mTag.isEmpty()) {
+                parameters.put("tag", mTag);
+            }
+            parameters.put("show-fields", "trailText");
+            if (mPageSize != null) {
+                parameters.put("page-size", mPageSize);
+            }
+            if (mPage != null) {
+                parameters.put("page", mPage);
+            }
+            if (mOrderBy != null) {
+                parameters.put("order-by", mOrderBy);
+            }
+            parameters.put("api-key", mApiKey);
+            return new GuardianQuery(parameters);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.android.readnewsapp.core;
+
+/**
+ * The LongHashSet is a set of primitive long values (open addressing with linear probing),
+ * so it can hold a very large number of url hashes without boxing every one of them.
+ * It is not thread-safe.
+ */
+
+public class LongHashSet {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The table is resized when it becomes more than half full
+     */
+    private static final int MAX_LOAD_PERCENT = 50;
+
+    /**
+     * The value 0 marks an empty slot, so it is tracked separately
+     */
+    private long[] mTable;
+    private int mSize;
+    private boolean mHasZero;
+
+    public LongHashSet() {
+        mTable = new long[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Return the number of values in the set
+     */
+    public int size() {
+        return mSize + (mHasZero ? 1 : 0);
+    }
+
+    /**
+     * Return true if the set contains the given value
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return mHasZero;
+        }
+        long[] table = mTable;
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (true) {
+            long current = table[index];
+            if (current == value) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Add the given value to the set. Return true if it was not already there.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !mHasZero;
+            mHasZero = true;
+            return added;
+        }
+        if ((mSize + 1) * 100 > mTable.length * MAX_LOAD_PERCENT) {
+            resize(mTable.length * 2);
+        }
+        if (insert(mTable, value)) {
+            mSize++;
+            return true;
+        }
+        return false;
+    }
+
+    private void resize(int capacity) {
+        long[] table = new long[capacity];
+        for (long value : mTable) {
+            if (value != 0) {
+                insert(table, value);
+            }
+        }
+        mTable = table;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (true) {
+            long current = table[index];
+            if (current == value) {
+                return false;
+            }
+            if (current == 0) {
+                table[index] = value;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Spread the bits of the value, so the low bits used as table index are well distributed.
+     * Package-private so the tests can build values that land on the same slot.
+     */
+    static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
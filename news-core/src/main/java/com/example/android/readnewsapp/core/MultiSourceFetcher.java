@@ -0,0 +1,154 @@
+package com.example.android.readnewsapp.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The MultiSourceFetcher fetches a number of {@link NewsSource}s concurrently and merges
+ * their News Articles in one list without duplicates. The throughput of every source
+ * is measured in its {@link SourceStats}. The sources that haven't finished by a deadline
+ * are cancelled, so a slow source doesn't hold back the others.
+ */
+
+public class MultiSourceFetcher {
+
+    private static final Logger LOGGER = Logger.getLogger(MultiSourceFetcher.class.getName());
+
+    /**
+     * Sorts News Articles newest first. The "yyyy-MM-dd HH:mm" dates sort as Strings.
+     */
+    private static final Comparator<News> NEWEST_FIRST = new Comparator<News>() {
+        @Override
+        public int compare(News first, News second) {
+            return second.getDateTime().compareTo(first.getDateTime());
+        }
+    };
+
+    /**
+     * Error of the sources that are cancelled at the deadline
+     */
+    static final String TIMED_OUT = "timed out";
+
+    /**
+     * Maximum number of sources fetched at the same time
+     * & the time (in milliseconds) all of them have to finish
+     */
+    private final int mMaxParallelism;
+    private final long mTimeoutMillis;
+
+    public MultiSourceFetcher(int maxParallelism, long timeoutMillis) {
+        mMaxParallelism = maxParallelism;
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Fetch all the given sources. A source that fails, or hasn't finished when the timeout
+     * has passed since the call, is logged & skipped.
+     * An Article that more than one source returns is kept once, where it comes first.
+     *
+     * @param newestFirst sorts the merged News Articles newest first; otherwise they keep
+     *                    the order of the sources & the order within every source
+     *                    (e.g. the relevance order of the Guardian API)
+     */
+    public Result fetchAll(List<NewsSource> sources, boolean newestFirst)
+            throws InterruptedException {
+        List<Callable<List<News>>> tasks = new ArrayList<>();
+        final List<SourceStats> stats = new ArrayList<>();
+        for (final NewsSource source : sources) {
+            final SourceStats sourceStats = new SourceStats(source.getName());
+            stats.add(sourceStats);
+            tasks.add(new Callable<List<News>>() {
+                @Override
+                public List<News> call() throws Exception {
+                    return fetch(source, sourceStats);
+                }
+            });
+        }
+
+        List<News> merged = new ArrayList<>();
+        if (tasks.isEmpty()) {
+            return new Result(merged, stats);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(mMaxParallelism, tasks.size())));
+        try {
+            LongHashSet urls = new LongHashSet();
+            List<Future<List<News>>> futures =
+                    executor.invokeAll(tasks, mTimeoutMillis, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < futures.size(); i++) {
+                List<News> sourceNews;
+                try {
+                    sourceNews = futures.get(i).get();
+                } catch (CancellationException e) {
+                    // Still running (or not started yet) at the deadline
+                    LOGGER.log(Level.WARNING, "Timed out fetching the source "
+                            + stats.get(i).getSourceName());
+                    stats.get(i).cancel(System.nanoTime() - start, TIMED_OUT);
+                    continue;
+                }
+                for (News news : sourceNews) {
+                    if (urls.add(news.getUrlHash())) {
+                        merged.add(news);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            // fetch() catches the exceptions of the sources, so this can't happen
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (newestFirst) {
+            Collections.sort(merged, NEWEST_FIRST);
+        }
+        return new Result(merged, stats);
+    }
+
+    private static List<News> fetch(NewsSource source, SourceStats stats) {
+        long start = System.nanoTime();
+        try {
+            List<News> news = source.fetch(stats);
+            stats.finish(news.size(), System.nanoTime() - start, null);
+            return news;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Problem fetching the source " + source.getName(), e);
+            stats.finish(0, System.nanoTime() - start, e.toString());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * The merged News Articles & the stats of every source
+     */
+    public static class Result {
+        private final List<News> mNews;
+        private final List<SourceStats> mStats;
+
+        private Result(List<News> news, List<SourceStats> stats) {
+            mNews = news;
+            mStats = stats;
+        }
+
+        public List<News> getNews() {
+            return mNews;
+        }
+
+        public List<SourceStats> getStats() {
+            return mStats;
+        }
+    }
+}
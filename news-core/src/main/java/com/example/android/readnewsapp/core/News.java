@@ -1,4 +1,4 @@
-package com.example.android.readnewsapp;
+package com.example.android.readnewsapp.core;
 
 /**
  * Created by Kostas on 14/7/2017.
@@ -16,6 +16,16 @@ public class News {
     private String mDateTime;
     private String mUrl;
 
+    /**
+     * 64-bit hash of the url, which identifies the Article in the read/seen indexes
+     */
+    private long mUrlHash;
+
+    /**
+     * True if the Article hadn't been shown to the user when it was loaded
+     */
+    private boolean mNew;
+
     /**
      * Constructor - constructs a new {@link News} Object
      *
@@ -31,6 +41,7 @@ public class News {
         mDescription = description;
         mDateTime = dateTime;
         mUrl = url;
+        mUrlHash = UrlHash.of(url);
     }
 
     /**
@@ -68,4 +79,25 @@ public class News {
     public String getUrl() {
         return mUrl;
     }
+
+    /**
+     * Get (return) the 64-bit hash of the Web Url of the News Article
+     */
+    public long getUrlHash() {
+        return mUrlHash;
+    }
+
+    /**
+     * Return true if the News Article hadn't been shown to the user when it was loaded
+     */
+    public boolean isNew() {
+        return mNew;
+    }
+
+    /**
+     * Set whether the News Article hadn't been shown to the user when it was loaded
+     */
+    public void setNew(boolean isNew) {
+        mNew = isNew;
+    }
 }
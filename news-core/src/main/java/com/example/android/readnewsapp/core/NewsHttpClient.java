@@ -0,0 +1,99 @@
+package com.example.android.readnewsapp.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+
+/**
+ * The NewsHttpClient performs the HTTP requests to the news APIs.
+ */
+
+public final class NewsHttpClient {
+
+    /**
+     * Static final int values for HTTP request & response
+     */
+    private static final int READ_TIME_OUT = 10000; // milliseconds
+    private static final int CONNECT_TIME_OUT = 15000; // milliseconds
+    private static final int RESPONSE_CODE_SUCCESS = 200;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsHttpClient} object.
+     */
+    private NewsHttpClient() {
+    }
+
+    /**
+     * Make an HTTP GET request to the given URL and return the response body as a String.
+     *
+     * @throws IOException if the request fails or the response code is not 200
+     */
+    public static String get(String requestUrl) throws IOException {
+        return get(requestUrl, null);
+    }
+
+    /**
+     * Make an HTTP GET request to the given URL and return the response body as a String.
+     *
+     * @param stats collects the bytes read from the response, or null
+     * @throws IOException if the request fails or the response code is not 200
+     */
+    public static String get(String requestUrl, SourceStats stats) throws IOException {
+        HttpURLConnection urlConnection = open(requestUrl);
+        try {
+            InputStream inputStream = urlConnection.getInputStream();
+            if (stats != null) {
+                inputStream = new CountingInputStream(inputStream, stats);
+            }
+            return readFromStream(inputStream);
+        } finally {
+            urlConnection.disconnect();
+        }
+    }
+
+    /**
+     * Open a connection for an HTTP GET request to the given URL and check the response code.
+     * The caller reads the input stream of the connection and then disconnects it.
+     *
+     * @throws IOException if the request fails or the response code is not 200
+     */
+    public static HttpURLConnection open(String requestUrl) throws IOException {
+        URL url = new URL(requestUrl);
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        urlConnection.setReadTimeout(READ_TIME_OUT /* milliseconds */);
+        urlConnection.setConnectTimeout(CONNECT_TIME_OUT /* milliseconds */);
+        urlConnection.setRequestMethod("GET");
+        urlConnection.connect();
+
+        int responseCode = urlConnection.getResponseCode();
+        if (responseCode != RESPONSE_CODE_SUCCESS) {
+            urlConnection.disconnect();
+            throw new IOException("Error response code: " + responseCode + " for " + requestUrl);
+        }
+        return urlConnection;
+    }
+
+    /**
+     * Convert the {@link InputStream} into a String which contains the
+     * whole response from the server.
+     */
+    private static String readFromStream(InputStream inputStream) throws IOException {
+        StringBuilder output = new StringBuilder();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                output.append(line);
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+        return output.toString();
+    }
+}
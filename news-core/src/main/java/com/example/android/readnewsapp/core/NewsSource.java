@@ -0,0 +1,25 @@
+package com.example.android.readnewsapp.core;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A NewsSource is a feed of News Articles, e.g. the Guardian API or an RSS/Atom feed.
+ * Every source normalises its items into {@link News} objects.
+ */
+
+public interface NewsSource {
+
+    /**
+     * Return a name which identifies the source, e.g. its URL
+     */
+    String getName();
+
+    /**
+     * Fetch & parse the News Articles of the source. Called on a background thread.
+     *
+     * @param stats collects the bytes read by the source
+     * @throws IOException if the source can't be fetched
+     */
+    List<News> fetch(SourceStats stats) throws IOException;
+}
@@ -0,0 +1,172 @@
+package com.example.android.readnewsapp.core;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * The RssAtomParser turns an RSS 2.0 (item) or Atom (entry) feed into {@link News} objects.
+ * It is built on a pull parser, so the items are read one after the other from the stream.
+ * On Android the pull parser is part of the platform; on a JVM kxml2 provides it.
+ */
+
+public final class RssAtomParser {
+
+    /**
+     * Dates of RSS (RFC 822) & Atom (ISO 8601)
+     */
+    private static final String RFC_822_FORMAT = "EEE, dd MMM yyyy HH:mm:ss Z";
+    private static final String ISO_8601_FORMAT = "yyyy-MM-dd'T'HH:mm:ssZ";
+
+    /**
+     * Format of the date & time of a {@link News} Article, like the Guardian ones
+     */
+    private static final String NEWS_DATE_FORMAT = "yyyy-MM-dd HH:mm";
+
+    /**
+     * Create a private constructor because no one should ever create a {@link RssAtomParser} object.
+     */
+    private RssAtomParser() {
+    }
+
+    /**
+     * Return the list of {@link News} objects of the feed in the given stream.
+     * The encoding is taken from the XML declaration of the feed.
+     */
+    public static List<News> parse(InputStream inputStream)
+            throws XmlPullParserException, IOException {
+        XmlPullParser parser = XmlPullParserFactory.newInstance().newPullParser();
+        parser.setInput(inputStream, null);
+
+        List<News> newsArticles = new ArrayList<>();
+        String feedTitle = "";
+        boolean inItem = false;
+        String title = "";
+        String section = "";
+        String description = "";
+        String dateTime = "";
+        String url = "";
+
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.END_DOCUMENT) {
+            if (eventType == XmlPullParser.START_TAG) {
+                String name = parser.getName();
+                if (name.equals("item") || name.equals("entry")) {
+                    inItem = true;
+                    title = "";
+                    section = "";
+                    description = "";
+                    dateTime = "";
+                    url = "";
+                } else if (!inItem) {
+                    // The title of the channel (RSS) or feed (Atom) is the default section
+                    if (name.equals("title") && feedTitle.isEmpty()) {
+                        feedTitle = readText(parser);
+                    }
+                } else if (name.equals("title")) {
+                    title = readText(parser);
+                } else if (name.equals("link")) {
+                    // Atom links are in the href attribute, RSS links are the text of the element
+                    String href = parser.getAttributeValue(null, "href");
+                    String rel = parser.getAttributeValue(null, "rel");
+                    if (href != null) {
+                        if (url.isEmpty() && (rel == null || rel.equals("alternate"))) {
+                            url = href;
+                        }
+                    } else {
+                        url = readText(parser);
+                    }
+                } else if (name.equals("description") || name.equals("summary")
+                        || (name.equals("content") && description.isEmpty())) {
+                    description = readText(parser);
+                } else if (name.equals("pubDate")) {
+                    dateTime = formatDate(readText(parser), RFC_822_FORMAT);
+                } else if ((name.equals("published") || name.equals("updated")
+                        || name.equals("dc:date")) && dateTime.isEmpty()) {
+                    dateTime = formatIsoDate(readText(parser));
+                } else if (name.equals("category") && section.isEmpty()) {
+                    String term = parser.getAttributeValue(null, "term");
+                    section = term != null ? term : readText(parser);
+                }
+            } else if (eventType == XmlPullParser.END_TAG && inItem) {
+                String name = parser.getName();
+                if (name.equals("item") || name.equals("entry")) {
+                    inItem = false;
+                    newsArticles.add(new News(title, section.isEmpty() ? feedTitle : section,
+                            description, dateTime, url));
+                }
+            }
+            eventType = parser.next();
+        }
+        return newsArticles;
+    }
+
+    /**
+     * Return the text of the current element, including the text of any nested element
+     * (e.g. Atom xhtml content). The parser is left on the end tag of the element.
+     */
+    private static String readText(XmlPullParser parser) throws XmlPullParserException, IOException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.TEXT) {
+                text.append(parser.getText());
+            } else if (eventType == XmlPullParser.START_TAG) {
+                depth++;
+            } else if (eventType == XmlPullParser.END_TAG) {
+                depth--;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                break;
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * Turn an ISO 8601 date like "2017-10-24T16:55:09.000+01:00" into "2017-10-24 15:55" (UTC)
+     */
+    private static String formatIsoDate(String isoDate) {
+        String date = isoDate;
+        if (date.endsWith("Z")) {
+            date = date.substring(0, date.length() - 1) + "+0000";
+        } else if (date.length() > 6 && date.charAt(date.length() - 3) == ':') {
+            // Remove the ':' of the time zone offset, "+01:00" -> "+0100"
+            date = date.substring(0, date.length() - 3) + date.substring(date.length() - 2);
+        }
+        // Remove the fraction of the seconds
+        int fraction = date.indexOf('.');
+        if (fraction > 0) {
+            int zone = fraction + 1;
+            while (zone < date.length() && Character.isDigit(date.charAt(zone))) {
+                zone++;
+            }
+            date = date.substring(0, fraction) + date.substring(zone);
+        }
+        return formatDate(date, ISO_8601_FORMAT);
+    }
+
+    /**
+     * Turn a date of the given format into a News Article date (UTC), or "" if it can't be parsed
+     */
+    private static String formatDate(String date, String pattern) {
+        try {
+            Date parsed = new SimpleDateFormat(pattern, Locale.US).parse(date);
+            SimpleDateFormat newsFormat = new SimpleDateFormat(NEWS_DATE_FORMAT, Locale.US);
+            newsFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return newsFormat.format(parsed);
+        } catch (ParseException e) {
+            return "";
+        }
+    }
+}
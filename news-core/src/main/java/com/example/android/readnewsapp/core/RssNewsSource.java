@@ -0,0 +1,45 @@
+package com.example.android.readnewsapp.core;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+
+/**
+ * A {@link NewsSource} for an RSS 2.0 or Atom feed. The response is parsed while it is
+ * downloaded by the {@link RssAtomParser}, so the whole document is never held in memory.
+ * For the same reason its {@link SourceStats} only have the time of the fetch & parse together.
+ */
+
+public class RssNewsSource implements NewsSource {
+
+    private final String mUrl;
+
+    public RssNewsSource(String url) {
+        mUrl = url;
+    }
+
+    @Override
+    public String getName() {
+        return mUrl;
+    }
+
+    @Override
+    public List<News> fetch(SourceStats stats) throws IOException {
+        HttpURLConnection urlConnection = NewsHttpClient.open(mUrl);
+        InputStream inputStream = null;
+        try {
+            inputStream = new CountingInputStream(urlConnection.getInputStream(), stats);
+            return RssAtomParser.parse(inputStream);
+        } catch (XmlPullParserException e) {
+            throw new IOException("Problem parsing the feed " + mUrl, e);
+        } finally {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+            urlConnection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.android.readnewsapp.core;
+
+import java.util.Locale;
+
+/**
+ * The SourceStats hold the throughput of a single fetch of a {@link NewsSource}:
+ * of the whole fetch (request, download & parse) and, for a source that downloads the
+ * whole response before parsing it, of the parse alone. A source that parses the response
+ * while it is downloaded (streaming) has no separate parse time.
+ * A source that is cancelled at the deadline keeps its error, even if its thread
+ * finishes later.
+ */
+
+public class SourceStats {
+
+    private static final long NOT_MEASURED = -1;
+
+    private final String mSourceName;
+    private long mBytes;
+    private int mArticles;
+    private long mElapsedNanos;
+    private long mParseNanos = NOT_MEASURED;
+    private String mError;
+    private boolean mFinished;
+
+    public SourceStats(String sourceName) {
+        mSourceName = sourceName;
+    }
+
+    public String getSourceName() {
+        return mSourceName;
+    }
+
+    /**
+     * Add the given number of bytes read from the source
+     */
+    public synchronized void addBytes(long bytes) {
+        if (!mFinished) {
+            mBytes += bytes;
+        }
+    }
+
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    public synchronized int getArticles() {
+        return mArticles;
+    }
+
+    /**
+     * Return the time of the whole fetch: request, download & parse
+     */
+    public synchronized long getElapsedNanos() {
+        return mElapsedNanos;
+    }
+
+    /**
+     * Add the time spent parsing a response that had already been downloaded
+     */
+    public synchronized void addParseNanos(long parseNanos) {
+        if (mFinished) {
+            return;
+        }
+        mParseNanos = (mParseNanos == NOT_MEASURED ? 0 : mParseNanos) + parseNanos;
+    }
+
+    /**
+     * Return the time spent parsing, or -1 if the response was parsed while downloaded
+     */
+    public synchronized long getParseNanos() {
+        return mParseNanos;
+    }
+
+    /**
+     * Return the error message if the fetch failed, or null
+     */
+    public synchronized String getError() {
+        return mError;
+    }
+
+    /**
+     * Finish the fetch, unless it has been cancelled already
+     */
+    synchronized void finish(int articles, long elapsedNanos, String error) {
+        if (mFinished) {
+            return;
+        }
+        mFinished = true;
+        mArticles = articles;
+        mElapsedNanos = elapsedNanos;
+        mError = error;
+    }
+
+    /**
+     * Finish a fetch that has been cancelled, its Articles aren't used.
+     * This replaces what the fetch has finished with while it was being cancelled.
+     */
+    synchronized void cancel(long elapsedNanos, String error) {
+        mFinished = true;
+        mArticles = 0;
+        mElapsedNanos = elapsedNanos;
+        mError = error;
+    }
+
+    /**
+     * Return the News Articles per second of the whole fetch
+     */
+    public synchronized double getArticlesPerSecond() {
+        return mElapsedNanos == 0 ? 0 : mArticles * 1e9 / mElapsedNanos;
+    }
+
+    /**
+     * Return the News Articles per second of the parse alone, or 0 if it wasn't measured
+     */
+    public synchronized double getParsedArticlesPerSecond() {
+        return mParseNanos <= 0 ? 0 : mArticles * 1e9 / mParseNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        String parse = mParseNanos == NOT_MEASURED
+                ? "streaming fetch+parse"
+                : String.format(Locale.US, "parse %d ms, %.1f articles/s",
+                mParseNanos / 1000000, getParsedArticlesPerSecond());
+        return String.format(Locale.US, "%s: %d articles, %d bytes, fetch %d ms "
+                        + "(%.1f articles/s, %.1f KB/s), %s%s",
+                mSourceName, mArticles, mBytes, mElapsedNanos / 1000000, getArticlesPerSecond(),
+                mElapsedNanos == 0 ? 0 : mBytes / 1024.0 * 1e9 / mElapsedNanos, parse,
+                mError == null ? "" : " error: " + mError);
+    }
+}
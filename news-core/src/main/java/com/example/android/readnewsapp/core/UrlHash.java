@@ -0,0 +1,34 @@
+package com.example.android.readnewsapp.core;
+
+/**
+ * The UrlHash class calculates the 64-bit FNV-1a hash of a News Article url.
+ * 64 bits are enough to treat the hash as the identity of the url.
+ */
+
+public final class UrlHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link UrlHash} object.
+     */
+    private UrlHash() {
+    }
+
+    /**
+     * Return the 64-bit hash of the given url
+     */
+    public static long of(String url) {
+        long hash = FNV_OFFSET_BASIS;
+        int length = url.length();
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            hash ^= (c & 0xff);
+            hash *= FNV_PRIME;
+            hash ^= (c >>> 8);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
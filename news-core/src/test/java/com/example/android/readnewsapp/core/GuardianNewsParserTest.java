@@ -0,0 +1,65 @@
+package com.example.android.readnewsapp.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test of the {@link GuardianNewsParser} & {@link GuardianQuery}, which runs on a JVM.
+ */
+public class GuardianNewsParserTest {
+
+    private static final String RESPONSE = "{\"response\":{\"status\":\"ok\",\"results\":["
+            + "{\"webTitle\":\"Title 1\",\"sectionName\":\"Sport\","
+            + "\"webPublicationDate\":\"2017-07-14T16:55:09Z\","
+            + "\"webUrl\":\"https://www.theguardian.com/sport/1\","
+            + "\"fields\":{\"trailText\":\"<strong>Trail</strong> text\"}},"
+            + "{\"webTitle\":\"Title 2\",\"webUrl\":\"https://www.theguardian.com/sport/2\"}]}}";
+
+    @Test
+    public void parse_extractsAllFields() throws Exception {
+        List<News> news = GuardianNewsParser.parse(RESPONSE);
+
+        assertEquals(2, news.size());
+        News first = news.get(0);
+        assertEquals("Title 1", first.getTitle());
+        assertEquals("Sport", first.getSection());
+        assertEquals("<strong>Trail</strong> text", first.getDescription());
+        assertEquals("2017-07-14 16:55", first.getDateTime());
+        assertEquals("https://www.theguardian.com/sport/1", first.getUrl());
+        assertEquals(UrlHash.of(first.getUrl()), first.getUrlHash());
+    }
+
+    @Test
+    public void parse_usesEmptyStringsForMissingFields() throws Exception {
+        News second = GuardianNewsParser.parse(RESPONSE).get(1);
+
+        assertEquals("", second.getSection());
+        assertEquals("", second.getDescription());
+        assertEquals("", second.getDateTime());
+    }
+
+    @Test
+    public void parse_returnsNullForEmptyResponse() throws Exception {
+        assertNull(GuardianNewsParser.parse(""));
+        assertNull(GuardianNewsParser.parse(null));
+    }
+
+    @Test
+    public void query_buildsEncodedUrl() throws Exception {
+        String url = new GuardianQuery.Builder()
+                .query("world cup")
+                .pageSize("10")
+                .orderBy("newest")
+                .build()
+                .toUrl();
+
+        assertEquals(GuardianQuery.GUARDIAN_API_SEARCH + "q=world%20cup&format=json&section=sport"
+                + "&show-fields=trailText&page-size=10&order-by=newest&api-key=test", url);
+        assertTrue(new GuardianQuery.Builder().build().toUrl().indexOf("q=") < 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.android.readnewsapp.core;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test of the {@link LongHashSet}, which runs on a JVM.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void zeroValue() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+
+        // 0 marks the empty slots, it must not make other values look present
+        assertFalse(set.contains(1));
+        assertTrue(set.add(1));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void resize_keepsAllValues() {
+        LongHashSet set = new LongHashSet();
+        for (long value = 1; value <= 10000; value++) {
+            assertTrue(set.add(value * 31));
+        }
+        assertEquals(10000, set.size());
+        for (long value = 1; value <= 10000; value++) {
+            assertTrue(set.contains(value * 31));
+            assertFalse(set.contains(value * 31 + 1));
+        }
+    }
+
+    @Test
+    public void collisions_areProbed() {
+        // Values that all map to the same slot of the initial table of 64 slots
+        int mask = 63;
+        int slot = LongHashSet.mix(1) & mask;
+        long[] colliding = new long[20];
+        int count = 0;
+        for (long value = 1; count < colliding.length; value++) {
+            if ((LongHashSet.mix(value) & mask) == slot) {
+                colliding[count++] = value;
+            }
+        }
+
+        LongHashSet set = new LongHashSet();
+        for (long value : colliding) {
+            assertTrue(set.add(value));
+        }
+        for (long value : colliding) {
+            assertFalse(set.add(value));
+            assertTrue(set.contains(value));
+        }
+        assertEquals(colliding.length, set.size());
+        assertFalse(set.contains(colliding[colliding.length - 1] + 1));
+    }
+
+    @Test
+    public void matchesHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            // A small range, so there are duplicates & negative values
+            long value = random.nextInt(50000) - 25000;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value = -30000; value < 30000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
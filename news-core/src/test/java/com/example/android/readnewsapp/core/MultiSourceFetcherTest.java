@@ -0,0 +1,152 @@
+package com.example.android.readnewsapp.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test of the {@link MultiSourceFetcher} with fake {@link NewsSource}s,
+ * which runs on a JVM.
+ */
+public class MultiSourceFetcherTest {
+
+    private static final long TIMEOUT = 5000; // milliseconds
+
+    /**
+     * Both sources return an Article with the same url, as different objects
+     */
+    private static final News GUARDIAN_1 = new News("Guardian 1", "Football", "",
+            "2017-10-24 10:00", "https://www.theguardian.com/football/1");
+    private static final News GUARDIAN_2 = new News("Guardian 2", "Tennis", "",
+            "2017-10-24 18:00", "https://www.theguardian.com/sport/2");
+    private static final News GUARDIAN_SHARED = new News("Shared", "Cricket", "",
+            "2017-10-24 12:00", "https://www.theguardian.com/sport/shared");
+    private static final News FEED_1 = new News("Feed 1", "Sport", "",
+            "2017-10-24 15:00", "https://feeds.example.com/1");
+    private static final News FEED_SHARED = new News("Shared (feed)", "Sport", "",
+            "2017-10-24 12:00", "https://www.theguardian.com/sport/shared");
+    private static final News FEED_2 = new News("Feed 2", "Sport", "",
+            "2017-10-23 09:00", "https://feeds.example.com/2");
+
+    private static final NewsSource GUARDIAN =
+            new FakeSource("guardian", GUARDIAN_1, GUARDIAN_2, GUARDIAN_SHARED);
+    private static final NewsSource FEED = new FakeSource("feed", FEED_1, FEED_SHARED, FEED_2);
+
+    @Test
+    public void newestFirst_sortsTheMergedArticles() throws Exception {
+        MultiSourceFetcher.Result result =
+                new MultiSourceFetcher(2, TIMEOUT).fetchAll(Arrays.asList(GUARDIAN, FEED), true);
+
+        assertEquals(Arrays.asList(GUARDIAN_2, FEED_1, GUARDIAN_SHARED, GUARDIAN_1, FEED_2),
+                result.getNews());
+    }
+
+    @Test
+    public void sourceOrder_keepsTheOrderOfEverySource() throws Exception {
+        MultiSourceFetcher.Result result =
+                new MultiSourceFetcher(2, TIMEOUT).fetchAll(Arrays.asList(GUARDIAN, FEED), false);
+
+        // The Article of both sources is kept where it comes first
+        assertEquals(Arrays.asList(GUARDIAN_1, GUARDIAN_2, GUARDIAN_SHARED, FEED_1, FEED_2),
+                result.getNews());
+    }
+
+    @Test
+    public void failingSource_isSkipped() throws Exception {
+        NewsSource failing = new NewsSource() {
+            @Override
+            public String getName() {
+                return "failing";
+            }
+
+            @Override
+            public List<News> fetch(SourceStats stats) throws IOException {
+                throw new IllegalStateException("broken source");
+            }
+        };
+
+        MultiSourceFetcher.Result result =
+                new MultiSourceFetcher(1, TIMEOUT).fetchAll(Arrays.asList(failing, FEED), false);
+
+        assertEquals(Arrays.asList(FEED_1, FEED_SHARED, FEED_2), result.getNews());
+        assertEquals(2, result.getStats().size());
+        assertNotNull(result.getStats().get(0).getError());
+        assertNull(result.getStats().get(1).getError());
+        assertEquals(3, result.getStats().get(1).getArticles());
+    }
+
+    @Test
+    public void slowSource_isCancelledAtTheDeadline() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        NewsSource slow = new NewsSource() {
+            @Override
+            public String getName() {
+                return "slow";
+            }
+
+            @Override
+            public List<News> fetch(SourceStats stats) throws IOException {
+                try {
+                    Thread.sleep(TIMEOUT);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new InterruptedIOException("interrupted");
+                }
+                return Arrays.asList(GUARDIAN_1);
+            }
+        };
+
+        MultiSourceFetcher.Result result =
+                new MultiSourceFetcher(2, 100).fetchAll(Arrays.asList(slow, FEED), false);
+
+        assertEquals(Arrays.asList(FEED_1, FEED_SHARED, FEED_2), result.getNews());
+        SourceStats slowStats = result.getStats().get(0);
+        assertEquals(MultiSourceFetcher.TIMED_OUT, slowStats.getError());
+        assertEquals(0, slowStats.getArticles());
+
+        // The cancelled fetch is interrupted & its own error doesn't replace the time out
+        assertTrue(interrupted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(MultiSourceFetcher.TIMED_OUT, slowStats.getError());
+    }
+
+    @Test
+    public void noSources_isEmpty() throws Exception {
+        MultiSourceFetcher.Result result =
+                new MultiSourceFetcher(4, TIMEOUT).fetchAll(Arrays.<NewsSource>asList(), true);
+
+        assertEquals(0, result.getNews().size());
+    }
+
+    /**
+     * A source that returns a fixed list of News Articles
+     */
+    private static class FakeSource implements NewsSource {
+        private final String mName;
+        private final List<News> mNews;
+
+        private FakeSource(String name, News... news) {
+            mName = name;
+            mNews = Arrays.asList(news);
+        }
+
+        @Override
+        public String getName() {
+            return mName;
+        }
+
+        @Override
+        public List<News> fetch(SourceStats stats) {
+            return mNews;
+        }
+    }
+}
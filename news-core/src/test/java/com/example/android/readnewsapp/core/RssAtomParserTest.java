@@ -0,0 +1,63 @@
+package com.example.android.readnewsapp.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Local unit test of the {@link RssAtomParser}, which runs on a JVM with kxml2.
+ */
+public class RssAtomParserTest {
+
+    private static final String RSS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<rss version=\"2.0\" xmlns:media=\"http://search.yahoo.com/mrss/\"><channel>"
+            + "<title>BBC Sport</title><link>https://www.bbc.co.uk/sport</link>"
+            + "<item><title><![CDATA[Final result]]></title>"
+            + "<description>The &lt;b&gt;report&lt;/b&gt;</description>"
+            + "<link>https://www.bbc.co.uk/sport/1</link>"
+            + "<pubDate>Tue, 24 Oct 2017 16:55:09 GMT</pubDate>"
+            + "<media:thumbnail url=\"https://example.com/1.jpg\"/></item>"
+            + "<item><title>Second</title><category>Football</category>"
+            + "<link>https://www.bbc.co.uk/sport/2</link></item>"
+            + "</channel></rss>";
+
+    private static final String ATOM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<feed xmlns=\"http://www.w3.org/2005/Atom\"><title>Atom Sport</title>"
+            + "<entry><title>Entry</title>"
+            + "<link rel=\"self\" href=\"https://example.com/self\"/>"
+            + "<link rel=\"alternate\" href=\"https://example.com/entry\"/>"
+            + "<updated>2017-10-24T17:55:09.123+01:00</updated>"
+            + "<category term=\"Tennis\"/>"
+            + "<content type=\"xhtml\"><div>Some <b>bold</b> text</div></content></entry>"
+            + "</feed>";
+
+    @Test
+    public void parse_rssItems() throws Exception {
+        List<News> news = RssAtomParser.parse(new ByteArrayInputStream(RSS.getBytes("UTF-8")));
+
+        assertEquals(2, news.size());
+        News first = news.get(0);
+        assertEquals("Final result", first.getTitle());
+        assertEquals("BBC Sport", first.getSection());
+        assertEquals("The <b>report</b>", first.getDescription());
+        assertEquals("2017-10-24 16:55", first.getDateTime());
+        assertEquals("https://www.bbc.co.uk/sport/1", first.getUrl());
+        assertEquals("Football", news.get(1).getSection());
+    }
+
+    @Test
+    public void parse_atomEntries() throws Exception {
+        List<News> news = RssAtomParser.parse(new ByteArrayInputStream(ATOM.getBytes("UTF-8")));
+
+        assertEquals(1, news.size());
+        News entry = news.get(0);
+        assertEquals("Entry", entry.getTitle());
+        assertEquals("Tennis", entry.getSection());
+        assertEquals("Some bold text", entry.getDescription());
+        assertEquals("2017-10-24 16:55", entry.getDateTime());
+        assertEquals("https://example.com/entry", entry.getUrl());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.android.readnewsapp.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit test of the {@link UrlHash}, which runs on a JVM.
+ */
+public class UrlHashTest {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Test
+    public void emptyUrl_isOffsetBasis() {
+        assertEquals(FNV_OFFSET_BASIS, UrlHash.of(""));
+    }
+
+    @Test
+    public void knownValue() {
+        assertEquals(0x089be207b544f1e4L, UrlHash.of("a"));
+        assertEquals(0xebda29f2e5ed2c2bL, UrlHash.of("https://www.theguardian.com/sport/1"));
+    }
+
+    @Test
+    public void isFnv1aOfUtf16LeBytes() throws Exception {
+        String[] urls = {
+                "https://www.theguardian.com/sport/2017/oct/24/match-report",
+                "https://www.bbc.co.uk/sport/football/41735436",
+                "https://example.com/caf\u00e9/\u0100\u4e2d"
+        };
+        for (String url : urls) {
+            assertEquals(url, fnv1a(url.getBytes("UTF-16LE")), UrlHash.of(url));
+        }
+    }
+
+    @Test
+    public void highByteOfCharsCounts() {
+        // Same low byte, different high byte
+        assertNotEquals(UrlHash.of("\u0001"), UrlHash.of("\u0101"));
+    }
+
+    @Test
+    public void noCollisionsForSimilarUrls() {
+        LongHashSet hashes = new LongHashSet();
+        for (int i = 0; i < 200000; i++) {
+            assertTrue(hashes.add(UrlHash.of("https://www.theguardian.com/sport/" + i)));
+        }
+    }
+
+    private static long fnv1a(byte[] bytes) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}